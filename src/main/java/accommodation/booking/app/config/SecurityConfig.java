@@ -38,7 +38,9 @@ public class SecurityConfig {
                         authorize -> authorize
                                 .requestMatchers(HttpMethod.GET, "/payments/success",
                                         "/payments/cancel").permitAll()
-                                .requestMatchers(HttpMethod.GET, "/accommodations").permitAll()
+                                .requestMatchers(HttpMethod.POST, "/payments/webhook").permitAll()
+                                .requestMatchers(HttpMethod.GET, "/accommodations",
+                                        "/accommodations/search").permitAll()
                                 .requestMatchers("/auth/register",
                                         "/auth/login",
                                         "/error",
@@ -50,6 +52,7 @@ public class SecurityConfig {
                                         "/v3/api-docs/**"
                                 )
                                 .permitAll()
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .anyRequest()
                                 .authenticated()
                 )
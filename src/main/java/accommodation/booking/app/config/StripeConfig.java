@@ -0,0 +1,29 @@
+package accommodation.booking.app.config;
+
+import com.stripe.StripeClient;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StripeConfig {
+
+    @Bean
+    public StripeClient stripeClient(
+            @Value("${STRIPE_SECRET_KEY}") String secretKey,
+            @Value("${stripe.client.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${stripe.client.read-timeout:PT5S}") Duration readTimeout,
+            @Value("${stripe.client.max-network-retries:2}") int maxNetworkRetries,
+            @Value("${stripe.client.api-base:}") String apiBase) {
+        StripeClient.StripeClientBuilder builder = StripeClient.builder()
+                .setApiKey(secretKey)
+                .setConnectTimeout(Math.toIntExact(connectTimeout.toMillis()))
+                .setReadTimeout(Math.toIntExact(readTimeout.toMillis()))
+                .setMaxNetworkRetries(maxNetworkRetries);
+        if (!apiBase.isBlank()) {
+            builder.setApiBase(apiBase);
+        }
+        return builder.build();
+    }
+}
@@ -1,14 +1,22 @@
 package accommodation.booking.app.controller;
 
 import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchResultDto;
 import accommodation.booking.app.dto.accommodation.AccommodationUpdateRequestDto;
+import accommodation.booking.app.dto.accommodation.AvailabilityDto;
 import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto;
+import accommodation.booking.app.dto.accommodation.MonthAvailabilityDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.service.AccommodationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,6 +26,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -40,9 +49,23 @@ public class AccommodationController {
 
     @GetMapping()
     @Operation(summary = "Get accommodations",
-            description = "Provides a list of available accommodations")
-    public List<AccommodationDto> getAccommodations() {
-        return accommodationService.getAccommodations();
+            description = "Provides a page of available accommodations ordered by id, "
+                    + "use nextPageToken as 'after' to get the next page")
+    public CursorPageDto<AccommodationDto> getAccommodations(
+            @Valid CursorPageRequestDto pageRequest) {
+        return accommodationService.getAccommodations(pageRequest);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search accommodations",
+            description = "Filters accommodations by type, city, country, amenities, daily rate "
+                    + "range and availability, and returns facet counts for all results "
+                    + "with a page of them ordered by id, use nextPageToken as 'after' "
+                    + "to get the next page")
+    public AccommodationSearchResultDto searchAccommodations(
+            AccommodationSearchParametersDto searchParameters,
+            @Valid CursorPageRequestDto pageRequest) {
+        return accommodationService.searchAccommodations(searchParameters, pageRequest);
     }
 
     @GetMapping("/{id}")
@@ -53,6 +76,27 @@ public class AccommodationController {
         return accommodationService.getAccommodation(id);
     }
 
+    @GetMapping("/{id}/availability")
+    @Operation(summary = "Get accommodation availability",
+            description = "Checks whether accommodation is free between given dates "
+                    + "and lists reserved nights")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    public AvailabilityDto getAvailability(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return accommodationService.getAvailability(id, from, to);
+    }
+
+    @GetMapping("/{id}/availability/month")
+    @Operation(summary = "Get accommodation month calendar",
+            description = "Provides free/busy state of every day in given month (yyyy-MM)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
+    public MonthAvailabilityDto getMonthAvailability(
+            @PathVariable Long id, @RequestParam YearMonth month) {
+        return accommodationService.getMonthAvailability(id, month);
+    }
+
     @PatchMapping("/{id}")
     @Operation(summary = "Update accommodation",
             description = "Allows to update accommodation")
@@ -3,11 +3,12 @@ package accommodation.booking.app.controller;
 import accommodation.booking.app.dto.booking.BookingDto;
 import accommodation.booking.app.dto.booking.BookingUpdateRequestDto;
 import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.service.BookingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -45,18 +46,20 @@ public class BookingController {
     @Operation(summary = "Get bookings list",
             description = "Retrieves bookings based on user ID and their status - only managers")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<BookingDto> getBookingsByUserIdAndStatus(
-            @RequestParam("user_id") Long id, @RequestParam String status) {
-        return bookingService.getBookingsByUserIdAndStatus(id, status);
+    public CursorPageDto<BookingDto> getBookingsByUserIdAndStatus(
+            @RequestParam("user_id") Long id, @RequestParam String status,
+            @Valid CursorPageRequestDto pageRequest) {
+        return bookingService.getBookingsByUserIdAndStatus(id, status, pageRequest);
     }
 
     @GetMapping("/my")
     @Operation(summary = "Get user bookings list",
             description = "Retrieves bookings for logged in user")
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
-    public List<BookingDto> getUserBookings(Authentication authentication) {
+    public CursorPageDto<BookingDto> getUserBookings(Authentication authentication,
+                                                     @Valid CursorPageRequestDto pageRequest) {
         String userEmail = authentication.getName();
-        return bookingService.getUserBookings(userEmail);
+        return bookingService.getUserBookings(userEmail, pageRequest);
     }
 
     @GetMapping("/{id}")
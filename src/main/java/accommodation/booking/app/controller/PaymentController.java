@@ -1,19 +1,22 @@
 package accommodation.booking.app.controller;
 
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.dto.payment.CreatePaymentRequestDto;
 import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.dto.payment.PaymentResponseDto;
 import accommodation.booking.app.service.PaymentService;
+import accommodation.booking.app.service.StripeWebhookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -25,17 +28,19 @@ import org.springframework.web.bind.annotation.RestController;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final StripeWebhookService stripeWebhookService;
 
     @GetMapping
     @Operation(summary = "Get all payments by user id",
             description = "Allows to get all payments by user id, admin can get any user payments")
     @PreAuthorize("hasAnyRole('ADMIN', 'CUSTOMER')")
-    public List<PaymentDto> getPaymentsByUserId(
+    public CursorPageDto<PaymentDto> getPaymentsByUserId(
             @RequestParam(name = "user_id") Long userId,
+            @Valid CursorPageRequestDto pageRequest,
             Authentication authentication
     ) {
         String userEmail = authentication.getName();
-        return paymentService.getAllPaymentsByUserId(userId, userEmail);
+        return paymentService.getAllPaymentsByUserId(userId, userEmail, pageRequest);
     }
 
     @PostMapping
@@ -65,4 +70,14 @@ public class PaymentController {
     ) {
         return paymentService.paymentCancel(sessionId);
     }
+
+    @PostMapping("/webhook")
+    @Operation(summary = "Stripe webhook",
+            description = "Verifies and stores Stripe Checkout events for asynchronous processing")
+    public void stripeWebhook(
+            @RequestBody String payload,
+            @RequestHeader(name = "Stripe-Signature", required = false) String signature
+    ) {
+        stripeWebhookService.receive(payload, signature);
+    }
 }
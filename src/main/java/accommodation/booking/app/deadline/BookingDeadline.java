@@ -0,0 +1,38 @@
+package accommodation.booking.app.deadline;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+public record BookingDeadline(Long bookingId, Type type, Instant dueAt) implements Delayed {
+    private static final Comparator<BookingDeadline> ORDER =
+            Comparator.comparing(BookingDeadline::dueAt)
+                    .thenComparing(BookingDeadline::bookingId)
+                    .thenComparing(BookingDeadline::type);
+
+    public BookingDeadline retryAfter(Duration delay) {
+        return new BookingDeadline(bookingId, type, Instant.now().plus(delay));
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(dueAt.toEpochMilli() - System.currentTimeMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof BookingDeadline deadline) {
+            return ORDER.compare(this, deadline);
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS),
+                other.getDelay(TimeUnit.MILLISECONDS));
+    }
+
+    public enum Type {
+        CHECK_OUT,
+        UNPAID_HOLD
+    }
+}
@@ -0,0 +1,100 @@
+package accommodation.booking.app.deadline;
+
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@Slf4j
+public class BookingDeadlineQueue {
+    private static final Set<Status> ACTIVE_STATUSES =
+            Collections.unmodifiableSet(EnumSet.of(Status.PENDING, Status.CONFIRMED));
+
+    private final DelayQueue<BookingDeadline> deadlines = new DelayQueue<>();
+    private final BookingRepository bookingRepository;
+    private final Duration holdTimeout;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    public BookingDeadlineQueue(BookingRepository bookingRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${booking.hold.timeout:PT30M}") Duration holdTimeout) {
+        this.bookingRepository = bookingRepository;
+        this.holdTimeout = holdTimeout;
+        Gauge.builder("booking.deadline.queue.size", deadlines, DelayQueue::size)
+                .description("Booking deadlines waiting to fire")
+                .register(meterRegistry);
+    }
+
+    public int rehydrate() {
+        List<ScheduledBooking> bookings = bookingRepository.findScheduledBookings(ACTIVE_STATUSES);
+        bookings.forEach(this::offer);
+        log.info("Booking deadline queue rehydrated with {} deadlines for {} bookings",
+                deadlines.size(), bookings.size());
+        return bookings.size();
+    }
+
+    public void schedule(Booking booking) {
+        Status status = booking.getStatus();
+        LocalDate checkOutDate = booking.getCheckOutDate();
+        afterCommit(() -> offer(new ScheduledBooking(booking.getId(), status, checkOutDate,
+                Objects.requireNonNullElseGet(booking.getCreatedAt(), LocalDateTime::now))));
+    }
+
+    public BookingDeadline take() throws InterruptedException {
+        return deadlines.take();
+    }
+
+    public void retry(BookingDeadline deadline, Duration delay) {
+        deadlines.offer(deadline.retryAfter(delay));
+    }
+
+    public Duration holdTimeout() {
+        return holdTimeout;
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    private void offer(ScheduledBooking booking) {
+        if (!ACTIVE_STATUSES.contains(booking.status())) {
+            return;
+        }
+        deadlines.offer(new BookingDeadline(booking.id(), BookingDeadline.Type.CHECK_OUT,
+                booking.checkOutDate().atStartOfDay(zone).toInstant()));
+        if (booking.status() == Status.PENDING && booking.createdAt() != null) {
+            deadlines.offer(new BookingDeadline(booking.id(), BookingDeadline.Type.UNPAID_HOLD,
+                    booking.createdAt().atZone(zone).toInstant().plus(holdTimeout)));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
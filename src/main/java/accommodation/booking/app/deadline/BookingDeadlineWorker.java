@@ -0,0 +1,72 @@
+package accommodation.booking.app.deadline;
+
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingDeadlineWorker {
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final BookingDeadlineQueue bookingDeadlineQueue;
+    private final BookingExpirationProcessor bookingExpirationProcessor;
+    private Thread worker;
+
+    // Every node rehydrates and fires every deadline, it is not split by the expiration
+    // partition leases. That is deliberate: firing a deadline is a single conditional update by
+    // primary key, so with N nodes a deadline costs N cheap updates of which exactly one changes
+    // the row, and only that node releases the booking and sends the notification. Splitting by
+    // lease would instead leave deadlines of an unleased partition until the nightly expiration
+    // run, and the queue holds only active bookings, so keeping all of them costs little memory.
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        bookingDeadlineQueue.rehydrate();
+        worker = Thread.ofPlatform()
+                .name("booking-deadlines")
+                .daemon()
+                .start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void process(BookingDeadline deadline) {
+        try {
+            switch (deadline.type()) {
+                case CHECK_OUT -> bookingExpirationProcessor.expireCheckedOut(
+                        deadline.bookingId(), LocalDate.now());
+                case UNPAID_HOLD -> bookingExpirationProcessor.expireUnpaidHold(
+                        deadline.bookingId(),
+                        LocalDateTime.now().minus(bookingDeadlineQueue.holdTimeout()));
+                default -> throw new IllegalStateException("Unknown deadline " + deadline);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to process {} deadline of booking {}, retrying in {}",
+                    deadline.type(), deadline.bookingId(), RETRY_DELAY, e);
+            bookingDeadlineQueue.retry(deadline, RETRY_DELAY);
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                process(bookingDeadlineQueue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package accommodation.booking.app.deadline;
+
+import accommodation.booking.app.model.Status;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public record ScheduledBooking(Long id, Status status, LocalDate checkOutDate,
+                               LocalDateTime createdAt) {
+}
@@ -13,4 +13,13 @@ public record AccommodationDto(
         BigDecimal dailyRate,
         Integer availability
 ) {
+    public AccommodationDto(Long id, Type type, Long locationId, String size,
+                            BigDecimal dailyRate, Integer availability) {
+        this(id, type, locationId, size, List.of(), dailyRate, availability);
+    }
+
+    public AccommodationDto withAmenityIds(List<Long> amenityIds) {
+        return new AccommodationDto(id, type, locationId, size, amenityIds, dailyRate,
+                availability);
+    }
 }
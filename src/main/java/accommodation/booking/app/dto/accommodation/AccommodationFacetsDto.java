@@ -0,0 +1,12 @@
+package accommodation.booking.app.dto.accommodation;
+
+import accommodation.booking.app.model.Type;
+import java.util.Map;
+
+public record AccommodationFacetsDto(
+        Map<Type, Integer> types,
+        Map<String, Integer> cities,
+        Map<String, Integer> countries,
+        Map<Long, Integer> amenities
+) {
+}
@@ -0,0 +1,22 @@
+package accommodation.booking.app.dto.accommodation;
+
+import accommodation.booking.app.model.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+
+public record AccommodationSearchParametersDto(
+        Type type,
+        String city,
+        String country,
+        List<Long> amenityIds,
+        BigDecimal minDailyRate,
+        BigDecimal maxDailyRate,
+        Boolean available,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate checkInDate,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate checkOutDate
+) {
+}
@@ -0,0 +1,11 @@
+package accommodation.booking.app.dto.accommodation;
+
+import java.util.List;
+
+public record AccommodationSearchResultDto(
+        int total,
+        List<AccommodationDto> accommodations,
+        String nextPageToken,
+        AccommodationFacetsDto facets
+) {
+}
@@ -0,0 +1,13 @@
+package accommodation.booking.app.dto.accommodation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AvailabilityDto(
+        Long accommodationId,
+        LocalDate from,
+        LocalDate to,
+        boolean available,
+        List<LocalDate> reservedNights
+) {
+}
@@ -0,0 +1,9 @@
+package accommodation.booking.app.dto.accommodation;
+
+import java.time.LocalDate;
+
+public record DayAvailabilityDto(
+        LocalDate date,
+        boolean available
+) {
+}
@@ -0,0 +1,11 @@
+package accommodation.booking.app.dto.accommodation;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public record MonthAvailabilityDto(
+        Long accommodationId,
+        YearMonth month,
+        List<DayAvailabilityDto> days
+) {
+}
@@ -1,5 +1,6 @@
 package accommodation.booking.app.dto.booking;
 
+import accommodation.booking.app.model.Status;
 import java.time.LocalDate;
 
 public record BookingDto(
@@ -10,4 +11,8 @@ public record BookingDto(
         Long userId,
         String status
 ) {
+    public BookingDto(Long id, LocalDate checkInDate, LocalDate checkOutDate,
+                      Long accommodationId, Long userId, Status status) {
+        this(id, checkInDate, checkOutDate, accommodationId, userId, status.name());
+    }
 }
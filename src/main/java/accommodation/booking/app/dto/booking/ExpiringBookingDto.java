@@ -0,0 +1,13 @@
+package accommodation.booking.app.dto.booking;
+
+import java.time.LocalDate;
+
+public record ExpiringBookingDto(
+        Long id,
+        Long accommodationId,
+        Long userId,
+        String userEmail,
+        LocalDate checkInDate,
+        LocalDate checkOutDate
+) {
+}
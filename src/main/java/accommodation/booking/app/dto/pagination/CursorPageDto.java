@@ -0,0 +1,19 @@
+package accommodation.booking.app.dto.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageDto<T>(
+        List<T> content,
+        String nextPageToken
+) {
+    public static <E, T> CursorPageDto<T> of(List<E> rows, CursorPageRequestDto pageRequest,
+                                             Function<E, Long> idOf, Function<E, T> mapper) {
+        int pageSize = pageRequest.pageSize();
+        List<E> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextPageToken = rows.size() > pageSize
+                ? CursorPageRequestDto.encode(idOf.apply(page.get(page.size() - 1)))
+                : null;
+        return new CursorPageDto<>(page.stream().map(mapper).toList(), nextPageToken);
+    }
+}
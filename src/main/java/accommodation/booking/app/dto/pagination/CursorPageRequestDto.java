@@ -0,0 +1,53 @@
+package accommodation.booking.app.dto.pagination;
+
+import accommodation.booking.app.exception.PaginationException;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import org.springframework.data.domain.Limit;
+
+public record CursorPageRequestDto(
+        String after,
+        @Min(value = 1, message = "limit must be between 1 and 100")
+        @Max(value = 100, message = "limit must be between 1 and 100")
+        Integer limit
+) {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    public static CursorPageRequestDto firstPage() {
+        return new CursorPageRequestDto(null, null);
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long afterId() {
+        if (after == null || after.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(after),
+                    StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new PaginationException("Invalid page token: " + after);
+        }
+    }
+
+    public int pageSize() {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new PaginationException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    public Limit fetchLimit() {
+        return Limit.of(pageSize() + 1);
+    }
+}
@@ -1,6 +1,8 @@
 package accommodation.booking.app.dto.payment;
 
+import accommodation.booking.app.model.Status;
 import java.math.BigDecimal;
+import java.net.URL;
 
 public record PaymentDto(
         Long id,
@@ -10,4 +12,9 @@ public record PaymentDto(
         String sessionId,
         String sessionUrl
 ) {
+    public PaymentDto(Long id, Long bookingId, Status status, BigDecimal amountToPay,
+                      String sessionId, URL sessionUrl) {
+        this(id, bookingId, status.name(), amountToPay, sessionId,
+                sessionUrl == null ? null : sessionUrl.toString());
+    }
 }
@@ -12,14 +12,25 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(value = {WebhookSignatureException.class})
+    public ResponseEntity<Object> handleWebhookSignature(HttpServletRequest request,
+                                                         WebhookSignatureException ex) {
+        return response(request, ex, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(value = {Exception.class})
     public ResponseEntity<Object> handleAllExceptions(HttpServletRequest request, Exception ex) {
+        return response(request, ex, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private ResponseEntity<Object> response(HttpServletRequest request, Exception ex,
+                                            HttpStatus status) {
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("timestamp", OffsetDateTime.now());
-        body.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        body.put("error", HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
         body.put("path", request.getRequestURI());
         body.put("message", ex.getMessage());
-        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+        return new ResponseEntity<>(body, status);
     }
 }
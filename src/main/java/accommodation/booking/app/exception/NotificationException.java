@@ -0,0 +1,7 @@
+package accommodation.booking.app.exception;
+
+public class NotificationException extends RuntimeException {
+    public NotificationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package accommodation.booking.app.exception;
+
+public class PaginationException extends RuntimeException {
+    public PaginationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package accommodation.booking.app.exception;
+
+public class PaymentGatewayException extends RuntimeException {
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
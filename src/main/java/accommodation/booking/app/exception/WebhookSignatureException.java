@@ -0,0 +1,7 @@
+package accommodation.booking.app.exception;
+
+public class WebhookSignatureException extends RuntimeException {
+    public WebhookSignatureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
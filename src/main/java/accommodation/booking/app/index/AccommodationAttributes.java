@@ -0,0 +1,14 @@
+package accommodation.booking.app.index;
+
+import accommodation.booking.app.model.Type;
+import java.math.BigDecimal;
+
+public record AccommodationAttributes(
+        Long id,
+        Type type,
+        String city,
+        String country,
+        BigDecimal dailyRate,
+        Integer availability
+) {
+}
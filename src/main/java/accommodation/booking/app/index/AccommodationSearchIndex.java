@@ -0,0 +1,265 @@
+package accommodation.booking.app.index;
+
+import accommodation.booking.app.dto.accommodation.AccommodationFacetsDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Amenity;
+import accommodation.booking.app.model.Type;
+import accommodation.booking.app.repository.AccommodationRepository;
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccommodationSearchIndex {
+    private static final int AVAILABLE = 1;
+
+    private final AccommodationRepository accommodationRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedAccommodation> accommodations = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final BitSet available = new BitSet();
+    private final Map<Type, BitSet> byType = new EnumMap<>(Type.class);
+    private final Map<String, BitSet> byCity = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, BitSet> byCountry = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<Long, BitSet> byAmenity = new TreeMap<>();
+    private final NavigableMap<BigDecimal, BitSet> byDailyRate = new TreeMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        log.info("Accommodation search index built for {} accommodations", reload());
+    }
+
+    /**
+     * Writes only update the index on the node that made them, so every node periodically
+     * reloads it from the database to pick up changes made through other instances.
+     */
+    @Scheduled(fixedDelayString = "${accommodation.search-index.refresh-interval-ms:60000}",
+            initialDelayString = "${accommodation.search-index.refresh-interval-ms:60000}")
+    public void refresh() {
+        log.debug("Accommodation search index reloaded with {} accommodations", reload());
+    }
+
+    private int reload() {
+        Map<Long, Set<Long>> amenityIds = accommodationRepository.findAmenityAssignments()
+                .stream()
+                .collect(Collectors.groupingBy(AmenityAssignment::accommodationId,
+                        Collectors.mapping(AmenityAssignment::amenityId, Collectors.toSet())));
+        List<AccommodationAttributes> attributes =
+                accommodationRepository.findAccommodationAttributes();
+        lock.writeLock().lock();
+        try {
+            accommodations.clear();
+            all.clear();
+            available.clear();
+            byType.clear();
+            byCity.clear();
+            byCountry.clear();
+            byAmenity.clear();
+            byDailyRate.clear();
+            attributes.forEach(accommodation -> add(new IndexedAccommodation(accommodation,
+                    amenityIds.getOrDefault(accommodation.id(), Set.of()))));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return attributes.size();
+    }
+
+    public void register(Accommodation accommodation) {
+        IndexedAccommodation indexed = new IndexedAccommodation(
+                new AccommodationAttributes(accommodation.getId(), accommodation.getType(),
+                        accommodation.getLocation().getCity(),
+                        accommodation.getLocation().getCountry(),
+                        accommodation.getDailyRate(), accommodation.getAvailability()),
+                accommodation.getAmenities().stream()
+                        .map(Amenity::getId)
+                        .collect(Collectors.toSet()));
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(indexed.attributes().id());
+                add(indexed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long accommodationId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(accommodationId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public BitSet search(AccommodationSearchParametersDto parameters) {
+        BitSet result = new BitSet();
+        lock.readLock().lock();
+        try {
+            result.or(all);
+            if (parameters.type() != null) {
+                result.and(byType.getOrDefault(parameters.type(), new BitSet()));
+            }
+            if (parameters.city() != null) {
+                result.and(byCity.getOrDefault(parameters.city(), new BitSet()));
+            }
+            if (parameters.country() != null) {
+                result.and(byCountry.getOrDefault(parameters.country(), new BitSet()));
+            }
+            if (parameters.amenityIds() != null) {
+                parameters.amenityIds().forEach(amenityId ->
+                        result.and(byAmenity.getOrDefault(amenityId, new BitSet())));
+            }
+            if (parameters.minDailyRate() != null || parameters.maxDailyRate() != null) {
+                result.and(dailyRateBetween(parameters.minDailyRate(),
+                        parameters.maxDailyRate()));
+            }
+            if (Boolean.TRUE.equals(parameters.available())) {
+                result.and(available);
+            } else if (Boolean.FALSE.equals(parameters.available())) {
+                result.andNot(available);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (parameters.checkInDate() != null && parameters.checkOutDate() != null) {
+            int[] reserved = result.stream()
+                    .filter(id -> bookingIntervalIndex.isReserved((long) id,
+                            parameters.checkInDate(), parameters.checkOutDate()))
+                    .toArray();
+            for (int id : reserved) {
+                result.clear(id);
+            }
+        }
+        return result;
+    }
+
+    public AccommodationFacetsDto facets(BitSet matches) {
+        lock.readLock().lock();
+        try {
+            return new AccommodationFacetsDto(
+                    countIn(byType, matches, () -> new EnumMap<>(Type.class)),
+                    countIn(byCity, matches, LinkedHashMap::new),
+                    countIn(byCountry, matches, LinkedHashMap::new),
+                    countIn(byAmenity, matches, LinkedHashMap::new));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet dailyRateBetween(BigDecimal min, BigDecimal max) {
+        NavigableMap<BigDecimal, BitSet> range = byDailyRate;
+        if (min != null) {
+            range = range.tailMap(min, true);
+        }
+        if (max != null) {
+            range = range.headMap(max, true);
+        }
+        BitSet result = new BitSet();
+        range.values().forEach(result::or);
+        return result;
+    }
+
+    private void add(IndexedAccommodation indexed) {
+        AccommodationAttributes attributes = indexed.attributes();
+        int bit = bitOf(attributes.id());
+        accommodations.put(attributes.id(), indexed);
+        all.set(bit);
+        if (attributes.availability() != null && attributes.availability() == AVAILABLE) {
+            available.set(bit);
+        }
+        byType.computeIfAbsent(attributes.type(), key -> new BitSet()).set(bit);
+        byCity.computeIfAbsent(attributes.city(), key -> new BitSet()).set(bit);
+        byCountry.computeIfAbsent(attributes.country(), key -> new BitSet()).set(bit);
+        byDailyRate.computeIfAbsent(attributes.dailyRate(), key -> new BitSet()).set(bit);
+        indexed.amenityIds().forEach(amenityId ->
+                byAmenity.computeIfAbsent(amenityId, key -> new BitSet()).set(bit));
+    }
+
+    private void unindex(Long accommodationId) {
+        IndexedAccommodation indexed = accommodations.remove(accommodationId);
+        if (indexed == null) {
+            return;
+        }
+        AccommodationAttributes attributes = indexed.attributes();
+        int bit = bitOf(accommodationId);
+        all.clear(bit);
+        available.clear(bit);
+        clearBit(byType, attributes.type(), bit);
+        clearBit(byCity, attributes.city(), bit);
+        clearBit(byCountry, attributes.country(), bit);
+        clearBit(byDailyRate, attributes.dailyRate(), bit);
+        indexed.amenityIds().forEach(amenityId -> clearBit(byAmenity, amenityId, bit));
+    }
+
+    private <K> void clearBit(Map<K, BitSet> bitmaps, K key, int bit) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.clear(bit);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private <K> Map<K, Integer> countIn(Map<K, BitSet> bitmaps, BitSet matches,
+                                        Supplier<Map<K, Integer>> factory) {
+        Map<K, Integer> counts = factory.get();
+        bitmaps.forEach((key, bitmap) -> {
+            BitSet intersection = (BitSet) bitmap.clone();
+            intersection.and(matches);
+            if (!intersection.isEmpty()) {
+                counts.put(key, intersection.cardinality());
+            }
+        });
+        return counts;
+    }
+
+    private int bitOf(Long accommodationId) {
+        return Math.toIntExact(accommodationId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record IndexedAccommodation(AccommodationAttributes attributes,
+                                        Collection<Long> amenityIds) {
+    }
+}
@@ -0,0 +1,7 @@
+package accommodation.booking.app.index;
+
+public record AmenityAssignment(
+        Long accommodationId,
+        Long amenityId
+) {
+}
@@ -0,0 +1,72 @@
+package accommodation.booking.app.index;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class AvailabilityCalendar {
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final Map<Long, ReservedNights> calendars = new ConcurrentHashMap<>();
+
+    @Value("${booking.availability.horizon-days:365}")
+    private int horizonDays;
+
+    public LocalDate horizonStart() {
+        return LocalDate.now();
+    }
+
+    public LocalDate horizonEnd() {
+        return horizonStart().plusDays(horizonDays);
+    }
+
+    /**
+     * Callers validate {@code from} against {@link #horizonStart()} before calling, so when a
+     * request crosses midnight {@code from} may already be yesterday here; the calendar is then
+     * built from {@code from} so every requested night stays inside it.
+     */
+    public BitSet reservedNights(Long accommodationId, LocalDate from, LocalDate to) {
+        LocalDate today = horizonStart();
+        LocalDate origin = from.isBefore(today) ? from : today;
+        BitSet nights = calendarOf(accommodationId, origin).nights();
+        return nights.get((int) ChronoUnit.DAYS.between(origin, from),
+                (int) ChronoUnit.DAYS.between(origin, to));
+    }
+
+    public boolean isAvailable(Long accommodationId, LocalDate from, LocalDate to) {
+        return reservedNights(accommodationId, from, to).isEmpty();
+    }
+
+    private ReservedNights calendarOf(Long accommodationId, LocalDate origin) {
+        long version = bookingIntervalIndex.version(accommodationId);
+        ReservedNights cached = calendars.get(accommodationId);
+        if (cached != null && cached.version() == version && cached.origin().equals(origin)) {
+            return cached;
+        }
+        ReservedNights rebuilt = build(accommodationId, origin, version);
+        calendars.put(accommodationId, rebuilt);
+        return rebuilt;
+    }
+
+    private ReservedNights build(Long accommodationId, LocalDate origin, long version) {
+        BitSet nights = new BitSet(horizonDays);
+        for (BookingInterval interval : bookingIntervalIndex.intervals(accommodationId)) {
+            long fromIndex = Math.max(0, ChronoUnit.DAYS.between(origin, interval.checkInDate()));
+            long toIndex = Math.min(horizonDays,
+                    ChronoUnit.DAYS.between(origin, interval.checkOutDate()));
+            if (fromIndex < toIndex) {
+                nights.set((int) fromIndex, (int) toIndex);
+            }
+        }
+        return new ReservedNights(origin, version, nights);
+    }
+
+    private record ReservedNights(LocalDate origin, long version, BitSet nights) {
+    }
+}
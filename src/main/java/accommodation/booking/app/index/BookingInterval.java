@@ -0,0 +1,11 @@
+package accommodation.booking.app.index;
+
+import java.time.LocalDate;
+
+public record BookingInterval(
+        Long bookingId,
+        Long accommodationId,
+        LocalDate checkInDate,
+        LocalDate checkOutDate
+) {
+}
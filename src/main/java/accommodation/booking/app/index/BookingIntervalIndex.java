@@ -0,0 +1,201 @@
+package accommodation.booking.app.index;
+
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingIntervalIndex {
+    public static final Set<Status> NON_RESERVED_STATUSES =
+            Collections.unmodifiableSet(EnumSet.of(Status.CANCELED, Status.EXPIRED));
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final BookingRepository bookingRepository;
+    private final Map<Long, AccommodationReservations> reservations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        Map<Long, List<BookingInterval>> intervals = loadReservedIntervals(today);
+        reservations.clear();
+        intervals.forEach((accommodationId, accommodationIntervals) ->
+                reservationsOf(accommodationId).replaceAll(accommodationIntervals));
+        log.info("Booking interval index built for {} accommodations", intervals.size());
+    }
+
+    public boolean isReserved(Long accommodationId, LocalDate checkInDate, LocalDate checkOutDate) {
+        AccommodationReservations accommodationReservations = reservations.get(accommodationId);
+        return accommodationReservations != null
+                && accommodationReservations.overlaps(checkInDate, checkOutDate);
+    }
+
+    public long version(Long accommodationId) {
+        AccommodationReservations accommodationReservations = reservations.get(accommodationId);
+        return accommodationReservations == null ? 0 : accommodationReservations.version();
+    }
+
+    public List<BookingInterval> intervals(Long accommodationId) {
+        AccommodationReservations accommodationReservations = reservations.get(accommodationId);
+        return accommodationReservations == null ? List.of() : accommodationReservations.all();
+    }
+
+    public void register(Booking booking) {
+        Long accommodationId = booking.getAccommodation().getId();
+        if (booking.isDeleted() || NON_RESERVED_STATUSES.contains(booking.getStatus())) {
+            remove(accommodationId, booking.getId());
+            return;
+        }
+        BookingInterval interval = new BookingInterval(booking.getId(), accommodationId,
+                booking.getCheckInDate(), booking.getCheckOutDate());
+        afterCommit(() -> reservationsOf(accommodationId).put(interval));
+    }
+
+    public void remove(Long accommodationId, Long bookingId) {
+        afterCommit(() -> reservationsOf(accommodationId).remove(bookingId));
+    }
+
+    @Scheduled(fixedDelayString = "${booking.index.consistency-check-interval-ms:600000}",
+            initialDelayString = "${booking.index.consistency-check-interval-ms:600000}")
+    public void checkConsistency() {
+        verifyConsistency();
+    }
+
+    public int verifyConsistency() {
+        LocalDate today = LocalDate.now();
+        Map<Long, List<BookingInterval>> intervals = loadReservedIntervals(today);
+        Set<Long> accommodationIds = new HashSet<>(intervals.keySet());
+        accommodationIds.addAll(reservations.keySet());
+
+        int repaired = 0;
+        for (Long accommodationId : accommodationIds) {
+            Set<BookingInterval> expected =
+                    new HashSet<>(intervals.getOrDefault(accommodationId, List.of()));
+            if (!expected.equals(reservationsOf(accommodationId).snapshot(today))) {
+                repair(accommodationId, today);
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            log.warn("Booking interval index was out of sync for {} accommodations, repaired",
+                    repaired);
+        }
+        return repaired;
+    }
+
+    private void repair(Long accommodationId, LocalDate today) {
+        AccommodationReservations accommodationReservations = reservationsOf(accommodationId);
+        synchronized (accommodationReservations) {
+            accommodationReservations.replaceAll(bookingRepository
+                    .findReservedIntervalsByAccommodationId(accommodationId, today,
+                            NON_RESERVED_STATUSES));
+        }
+    }
+
+    private Map<Long, List<BookingInterval>> loadReservedIntervals(LocalDate today) {
+        return bookingRepository.findReservedIntervals(today, NON_RESERVED_STATUSES).stream()
+                .collect(Collectors.groupingBy(BookingInterval::accommodationId));
+    }
+
+    private AccommodationReservations reservationsOf(Long accommodationId) {
+        return reservations.computeIfAbsent(accommodationId,
+                id -> new AccommodationReservations());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static class AccommodationReservations {
+        private final NavigableMap<LocalDate, Map<Long, BookingInterval>> byCheckInDate =
+                new TreeMap<>();
+        private final Map<Long, BookingInterval> byBookingId = new HashMap<>();
+        private long longestStayDays;
+        private long version;
+
+        synchronized boolean overlaps(LocalDate checkInDate, LocalDate checkOutDate) {
+            LocalDate earliestCheckIn = checkInDate.minusDays(longestStayDays);
+            return byCheckInDate.subMap(earliestCheckIn, false, checkOutDate, false).values()
+                    .stream()
+                    .flatMap(intervals -> intervals.values().stream())
+                    .anyMatch(interval -> interval.checkOutDate().isAfter(checkInDate));
+        }
+
+        synchronized void put(BookingInterval interval) {
+            remove(interval.bookingId());
+            byBookingId.put(interval.bookingId(), interval);
+            byCheckInDate.computeIfAbsent(interval.checkInDate(), date -> new HashMap<>())
+                    .put(interval.bookingId(), interval);
+            longestStayDays = Math.max(longestStayDays, ChronoUnit.DAYS.between(
+                    interval.checkInDate(), interval.checkOutDate()));
+            version = VERSIONS.incrementAndGet();
+        }
+
+        synchronized void remove(Long bookingId) {
+            BookingInterval interval = byBookingId.remove(bookingId);
+            if (interval == null) {
+                return;
+            }
+            Map<Long, BookingInterval> sameDay = byCheckInDate.get(interval.checkInDate());
+            sameDay.remove(bookingId);
+            if (sameDay.isEmpty()) {
+                byCheckInDate.remove(interval.checkInDate());
+            }
+            version = VERSIONS.incrementAndGet();
+        }
+
+        synchronized void replaceAll(List<BookingInterval> intervals) {
+            byBookingId.clear();
+            byCheckInDate.clear();
+            longestStayDays = 0;
+            version = VERSIONS.incrementAndGet();
+            intervals.forEach(this::put);
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized List<BookingInterval> all() {
+            return List.copyOf(byBookingId.values());
+        }
+
+        synchronized Set<BookingInterval> snapshot(LocalDate today) {
+            return byBookingId.values().stream()
+                    .filter(interval -> interval.checkOutDate().isAfter(today))
+                    .collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package accommodation.booking.app.index;
+
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class PendingBookingCounter {
+    private final BookingRepository bookingRepository;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Map<Long, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public PendingBookingCounter(BookingRepository bookingRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${booking.pending-counter.enabled:false}")
+                                 boolean enabled,
+                                 @Value("${booking.pending-counter.ttl:PT5M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("booking.pending.counter.hits")
+                .description("Pending booking counts served from memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("booking.pending.counter.misses")
+                .description("Pending booking counts loaded from the database")
+                .register(meterRegistry);
+    }
+
+    public long count(Long userId) {
+        if (!enabled) {
+            return bookingRepository.countByUserIdAndStatus(userId, Status.PENDING);
+        }
+        long now = System.nanoTime();
+        CachedCount cached = counts.get(userId);
+        if (cached != null && cached.expiresAt() - now > 0) {
+            hits.increment();
+            return cached.count();
+        }
+        misses.increment();
+        long observedGeneration = generation.get();
+        long count = bookingRepository.countByUserIdAndStatus(userId, Status.PENDING);
+        if (generation.get() == observedGeneration) {
+            counts.put(userId, new CachedCount(count, now + ttlNanos));
+        }
+        return count;
+    }
+
+    public void invalidate(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        evict(userId);
+        afterCommit(() -> evict(userId));
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    private void evict(Long userId) {
+        generation.incrementAndGet();
+        counts.remove(userId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record CachedCount(long count, long expiresAt) {
+    }
+}
@@ -0,0 +1,78 @@
+package accommodation.booking.app.lock;
+
+import accommodation.booking.app.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaseService {
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+    private final NodeIdentity nodeIdentity;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    public boolean tryAcquire(String name, Duration ttl) {
+        return timed("scheduler.lease.acquire", () -> {
+            schedulerLeaseRepository.createIfAbsent(name);
+            boolean acquired = schedulerLeaseRepository.acquire(name, nodeIdentity.id(),
+                    ttl.toMillis()) == 1;
+            if (acquired) {
+                held.add(name);
+            }
+            return acquired;
+        });
+    }
+
+    public boolean renew(String name, Duration ttl) {
+        return timed("scheduler.lease.renew", () -> {
+            boolean renewed = schedulerLeaseRepository.renew(name, nodeIdentity.id(),
+                    ttl.toMillis()) == 1;
+            if (!renewed) {
+                held.remove(name);
+            }
+            return renewed;
+        });
+    }
+
+    public void release(String name) {
+        held.remove(name);
+        schedulerLeaseRepository.release(name, nodeIdentity.id());
+    }
+
+    // The node id is random per start unless app.node-id is set, so a lease left behind by a
+    // stopped node could not be renewed by its successor and would block its partition until
+    // the lease expires.
+    @PreDestroy
+    public void releaseAll() {
+        for (String name : List.copyOf(held)) {
+            try {
+                release(name);
+            } catch (RuntimeException e) {
+                log.warn("Failed to release lease {} on shutdown, it expires on its own", name,
+                        e);
+            }
+        }
+    }
+
+    private boolean timed(String metric, BooleanSupplier operation) {
+        long started = System.nanoTime();
+        boolean held = operation.getAsBoolean();
+        Timer.builder(metric)
+                .description("Latency of scheduler lease operations")
+                .tag("outcome", held ? "held" : "busy")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - started));
+        return held;
+    }
+}
@@ -0,0 +1,28 @@
+package accommodation.booking.app.lock;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class NodeIdentity {
+    private final String id;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configuredId) {
+        this.id = configuredId.isBlank() ? hostName() + "-" + UUID.randomUUID() : configuredId;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
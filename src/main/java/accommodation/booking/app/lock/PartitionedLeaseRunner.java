@@ -0,0 +1,38 @@
+package accommodation.booking.app.lock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionedLeaseRunner {
+    private final LeaseService leaseService;
+    private final NodeIdentity nodeIdentity;
+
+    public List<Integer> run(String job, int partitions, Duration ttl, PartitionTask task) {
+        List<Integer> claimed = new ArrayList<>();
+        int offset = Math.floorMod(nodeIdentity.id().hashCode(), partitions);
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            String lease = job + "-" + partition;
+            if (!leaseService.tryAcquire(lease, ttl)) {
+                continue;
+            }
+            claimed.add(partition);
+            task.run(partition, () -> leaseService.renew(lease, ttl));
+        }
+        log.info("Node {} ran {} partitions {}", nodeIdentity.id(), job, claimed);
+        return claimed;
+    }
+
+    @FunctionalInterface
+    public interface PartitionTask {
+        void run(int partition, BooleanSupplier leaseHeld);
+    }
+}
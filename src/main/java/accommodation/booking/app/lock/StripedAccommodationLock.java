@@ -0,0 +1,54 @@
+package accommodation.booking.app.lock;
+
+import accommodation.booking.app.exception.BookingException;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Component
+public class StripedAccommodationLock {
+    private ReentrantLock[] stripes;
+
+    @Value("${booking.lock.stripes:64}")
+    private int stripeCount;
+    @Value("${booking.lock.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @PostConstruct
+    public void init() {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public void lockUntilTransactionEnds(Long accommodationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Accommodation lock requires an active transaction");
+        }
+        ReentrantLock lock = stripeOf(accommodationId);
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new BookingException("Accommodation is being booked by another request, "
+                        + "try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BookingException("Interrupted while waiting for accommodation lock");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private ReentrantLock stripeOf(Long accommodationId) {
+        return stripes[Math.floorMod(Long.hashCode(accommodationId), stripes.length)];
+    }
+}
@@ -6,6 +6,8 @@ import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Amenity;
 import accommodation.booking.app.model.Location;
+import java.util.List;
+import java.util.Set;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -33,6 +35,16 @@ public interface AccommodationMapper {
         return (amenity == null) ? null : amenity.getId();
     }
 
+    default List<Long> mapAmenitiesToIds(Set<Amenity> amenities) {
+        if (amenities == null) {
+            return null;
+        }
+        return amenities.stream()
+                .map(Amenity::getId)
+                .sorted()
+                .toList();
+    }
+
     default Location mapIdToLocation(Long locationId) {
         if (locationId == null) {
             return null;
@@ -16,6 +16,7 @@ public interface BookingMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "user", ignore = true)
     @Mapping(target = "status", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
     Booking toEntity(CreateBookingRequestDto requestDto);
 
     @Mapping(target = "accommodationId", source = "accommodation.id")
@@ -13,7 +13,8 @@ public interface PaymentMapper {
     @Mapping(target = "bookingId", source = "bookingId.id")
     @Mapping(target = "status", expression = "java(payment.getStatus().name())")
     @Mapping(target = "amountToPay", source = "amountToPay")
-    @Mapping(target = "sessionUrl", expression = "java(payment.getSessionUrl().toString())")
+    @Mapping(target = "sessionUrl", expression = "java(payment.getSessionUrl() == null"
+            + " ? null : payment.getSessionUrl().toString())")
     PaymentDto toDto(Payment payment);
 
     @Mapping(target = "message", ignore = true)
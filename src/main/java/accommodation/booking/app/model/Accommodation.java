@@ -13,11 +13,14 @@ import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
@@ -30,7 +33,10 @@ import org.hibernate.annotations.SQLRestriction;
 @Accessors(chain = true)
 public class Accommodation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "accommodations_id")
+    @TableGenerator(name = "accommodations_id", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "accommodations", allocationSize = 50)
     private Long id;
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -44,7 +50,8 @@ public class Accommodation {
     @JoinTable(name = "amenities_accommodations",
             joinColumns = @JoinColumn(name = "accommodation_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "amenity_id", referencedColumnName = "id"))
-    private List<Amenity> amenities;
+    @BatchSize(size = 64)
+    private Set<Amenity> amenities = new HashSet<>();
     @Column(name = "daily_rate", nullable = false)
     private BigDecimal dailyRate;
     @Column(nullable = false)
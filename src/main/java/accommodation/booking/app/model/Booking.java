@@ -11,10 +11,13 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
@@ -27,7 +30,10 @@ import org.hibernate.annotations.SQLRestriction;
 @Accessors(chain = true)
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bookings_id")
+    @TableGenerator(name = "bookings_id", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "bookings", allocationSize = 50)
     private Long id;
     @Column(name = "check_in_date", nullable = false)
     private LocalDate checkInDate;
@@ -44,4 +50,7 @@ public class Booking {
     private Status status;
     @Column(name = "is_deleted", nullable = false)
     private boolean isDeleted = false;
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
 }
@@ -0,0 +1,22 @@
+package accommodation.booking.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Entity
+@Table(name = "booking_guards")
+@Getter
+@Setter
+@Accessors(chain = true)
+public class BookingGuard {
+    @Id
+    @Column(name = "accommodation_id", nullable = false)
+    private Long accommodationId;
+    @Column(nullable = false)
+    private Long version;
+}
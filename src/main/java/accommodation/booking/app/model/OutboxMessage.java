@@ -0,0 +1,35 @@
+package accommodation.booking.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+@Accessors(chain = true)
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false, columnDefinition = "text")
+    private String message;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+    @Column(name = "abandoned_at")
+    private LocalDateTime abandonedAt;
+}
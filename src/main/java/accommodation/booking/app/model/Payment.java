@@ -10,8 +10,15 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -26,8 +33,13 @@ import org.hibernate.annotations.SQLRestriction;
 @Setter
 @Accessors(chain = true)
 public class Payment {
+    private static final int SESSION_ID_HASH_LENGTH = 16;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payments_id")
+    @TableGenerator(name = "payments_id", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "payments", allocationSize = 50)
     private Long id;
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 32)
@@ -35,12 +47,33 @@ public class Payment {
     @OneToOne
     @JoinColumn(name = "booking_id", nullable = false)
     private Booking bookingId;
-    @Column(name = "session_url", nullable = false)
+    @Column(name = "session_url")
     private URL sessionUrl;
-    @Column(name = "session_id", nullable = false)
+    @Column(name = "session_id")
     private String sessionId;
+    @Setter(AccessLevel.NONE)
+    @Column(name = "session_id_hash", columnDefinition = "binary(16)")
+    private byte[] sessionIdHash;
+    @Column(name = "session_expires_at")
+    private LocalDateTime sessionExpiresAt;
     @Column(name = "amount_to_pay", nullable = false)
     private BigDecimal amountToPay;
     @Column(name = "is_deleted", nullable = false)
     private boolean isDeleted = false;
+
+    public Payment setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+        this.sessionIdHash = sessionId == null ? null : hashSessionId(sessionId);
+        return this;
+    }
+
+    public static byte[] hashSessionId(String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            return Arrays.copyOf(digest, SESSION_ID_HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
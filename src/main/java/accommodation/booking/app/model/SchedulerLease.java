@@ -0,0 +1,24 @@
+package accommodation.booking.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Entity
+@Table(name = "scheduler_leases")
+@Getter
+@Setter
+@Accessors(chain = true)
+public class SchedulerLease {
+    @Id
+    @Column(nullable = false, length = 100)
+    private String name;
+    private String owner;
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
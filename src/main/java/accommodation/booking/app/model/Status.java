@@ -1,5 +1,5 @@
 package accommodation.booking.app.model;
 
 public enum Status {
-    PENDING, CONFIRMED, CANCELED, EXPIRED
+    PENDING, CONFIRMED, CANCELED, EXPIRED, REFUND_REQUIRED
 }
@@ -0,0 +1,39 @@
+package accommodation.booking.app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+@Entity
+@Table(name = "stripe_events")
+@Getter
+@Setter
+@Accessors(chain = true)
+public class StripeEvent {
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+    @Column(nullable = false, length = 100)
+    private String type;
+    @Column(name = "session_id", nullable = false)
+    private String sessionId;
+    @Column(name = "payment_status", length = 32)
+    private String paymentStatus;
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    @Column(name = "failed_at")
+    private LocalDateTime failedAt;
+}
@@ -9,6 +9,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import java.util.Collection;
 import java.util.List;
 import lombok.Getter;
@@ -28,7 +29,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 @Accessors(chain = true)
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "users", allocationSize = 50)
     private Long id;
     @Column(nullable = false, unique = true)
     private String email;
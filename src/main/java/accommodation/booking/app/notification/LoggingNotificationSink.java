@@ -0,0 +1,16 @@
+package accommodation.booking.app.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "notification.sink", havingValue = "log")
+@Slf4j
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public void send(String message) {
+        log.info("Notification: {}", message);
+    }
+}
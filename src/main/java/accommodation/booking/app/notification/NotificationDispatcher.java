@@ -0,0 +1,206 @@
+package accommodation.booking.app.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class NotificationDispatcher {
+    static final int MAX_MESSAGE_LENGTH = 4096;
+    private static final String DIGEST_SEPARATOR = "\n\n";
+
+    private final NotificationSink sink;
+    private final BlockingQueue<Notification> queue;
+    private final TokenBucket rateLimiter;
+    private final int workerCount;
+    private final int maxDigestSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter digests;
+    private final Counter retries;
+    private final Counter failed;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    public NotificationDispatcher(NotificationSink sink,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${notification.queue-capacity:1000}") int queueCapacity,
+                                  @Value("${notification.workers:2}") int workerCount,
+                                  @Value("${notification.digest-size:20}") int maxDigestSize,
+                                  @Value("${notification.rate-per-minute:20}") int ratePerMinute,
+                                  @Value("${notification.burst:3}") int burst,
+                                  @Value("${notification.max-attempts:3}") int maxAttempts,
+                                  @Value("${notification.retry-backoff:PT1S}")
+                                  Duration retryBackoff) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.rateLimiter = new TokenBucket(burst, ratePerMinute);
+        this.workerCount = workerCount;
+        this.maxDigestSize = maxDigestSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        Gauge.builder("notification.queue.depth", queue, BlockingQueue::size)
+                .description("Notifications waiting to be delivered")
+                .register(meterRegistry);
+        this.dropped = counter(meterRegistry, "notification.dropped",
+                "Notifications dropped because the queue was full");
+        this.sent = counter(meterRegistry, "notification.sent", "Messages delivered to the sink");
+        this.digests = counter(meterRegistry, "notification.digests",
+                "Messages that coalesced several notifications");
+        this.retries = counter(meterRegistry, "notification.retries", "Delivery retries");
+        this.failed = counter(meterRegistry, "notification.failed",
+                "Messages given up on after all retries");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform()
+                    .name("notification-dispatcher-" + i)
+                    .daemon()
+                    .start(this::work));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        if (!queue.isEmpty()) {
+            log.warn("Notification dispatcher stopped with {} undelivered messages",
+                    queue.size());
+        }
+    }
+
+    public boolean submit(String message, Runnable onDelivered) {
+        if (!queue.offer(new Notification(message, onDelivered))) {
+            dropped.increment();
+            log.warn("Notification queue is full, dropping message");
+            return false;
+        }
+        return true;
+    }
+
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    static List<Digest> coalesce(List<Notification> notifications) {
+        List<Digest> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        List<Notification> parts = new ArrayList<>();
+        for (Notification notification : notifications) {
+            String message = notification.message();
+            String text = message.length() > MAX_MESSAGE_LENGTH
+                    ? message.substring(0, MAX_MESSAGE_LENGTH)
+                    : message;
+            if (!current.isEmpty()
+                    && current.length() + DIGEST_SEPARATOR.length() + text.length()
+                    > MAX_MESSAGE_LENGTH) {
+                result.add(new Digest(current.toString(), List.copyOf(parts)));
+                current.setLength(0);
+                parts.clear();
+            }
+            if (!current.isEmpty()) {
+                current.append(DIGEST_SEPARATOR);
+            }
+            current.append(text);
+            parts.add(notification);
+        }
+        if (!current.isEmpty()) {
+            result.add(new Digest(current.toString(), List.copyOf(parts)));
+        }
+        return result;
+    }
+
+    private void work() {
+        List<Notification> batch = new ArrayList<>();
+        while (running) {
+            try {
+                Notification first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                rateLimiter.acquire();
+                batch.add(first);
+                queue.drainTo(batch, maxDigestSize - 1);
+                List<Digest> chunks = coalesce(batch);
+                for (int i = 0; i < chunks.size(); i++) {
+                    if (i > 0) {
+                        rateLimiter.acquire();
+                    }
+                    deliver(chunks.get(i));
+                }
+                if (batch.size() > chunks.size()) {
+                    digests.increment(chunks.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Failed to dispatch {} notifications", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(Digest digest) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                sink.send(digest.text());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    failed.increment();
+                    log.error("Giving up on notification after {} attempts", attempt, e);
+                    return;
+                }
+                retries.increment();
+                log.warn("Notification delivery failed, attempt {} of {}", attempt,
+                        maxAttempts, e);
+                TimeUnit.MILLISECONDS.sleep(retryBackoff.toMillis() << (attempt - 1));
+                rateLimiter.acquire();
+                continue;
+            }
+            sent.increment();
+            digest.parts().forEach(this::acknowledge);
+            return;
+        }
+    }
+
+    private void acknowledge(Notification notification) {
+        try {
+            notification.onDelivered().run();
+        } catch (RuntimeException e) {
+            log.error("Delivery callback of a sent notification failed", e);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    record Notification(String message, Runnable onDelivered) {
+    }
+
+    record Digest(String text, List<Notification> parts) {
+    }
+}
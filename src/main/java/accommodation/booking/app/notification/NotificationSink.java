@@ -0,0 +1,5 @@
+package accommodation.booking.app.notification;
+
+public interface NotificationSink {
+    void send(String message);
+}
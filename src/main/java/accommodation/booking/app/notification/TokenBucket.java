@@ -0,0 +1,54 @@
+package accommodation.booking.app.notification;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class TokenBucket {
+    private final long capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long capacity, long tokensPerMinute) {
+        this(capacity, tokensPerMinute, System::nanoTime);
+    }
+
+    public TokenBucket(long capacity, long tokensPerMinute, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
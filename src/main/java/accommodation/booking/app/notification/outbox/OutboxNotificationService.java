@@ -0,0 +1,17 @@
+package accommodation.booking.app.notification.outbox;
+
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxNotificationService implements NotificationService {
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    @Override
+    public void telegramSendMessage(String message) {
+        outboxMessageRepository.enqueue(message);
+    }
+}
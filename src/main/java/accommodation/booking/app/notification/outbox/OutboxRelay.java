@@ -0,0 +1,128 @@
+package accommodation.booking.app.notification.outbox;
+
+import accommodation.booking.app.model.OutboxMessage;
+import accommodation.booking.app.notification.NotificationDispatcher;
+import accommodation.booking.app.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+@Slf4j
+public class OutboxRelay {
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> delivered = ConcurrentHashMap.newKeySet();
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimTtl;
+    private final Duration retention;
+    private final Counter abandoned;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       NotificationDispatcher notificationDispatcher,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${notification.outbox.batch-size:100}") int batchSize,
+                       @Value("${notification.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${notification.outbox.claim-ttl:PT5M}") Duration claimTtl,
+                       @Value("${notification.outbox.retention:P7D}") Duration retention) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.notificationDispatcher = notificationDispatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTtl = claimTtl;
+        this.retention = retention;
+        this.abandoned = Counter.builder("notification.outbox.abandoned")
+                .description("Outbox messages given up on after the last delivery attempt")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        markDelivered();
+        abandonExhausted();
+        int limit = Math.min(batchSize, notificationDispatcher.remainingCapacity());
+        if (limit == 0) {
+            return;
+        }
+        List<OutboxMessage> claimed = transactionTemplate.execute(status -> claim(limit));
+        for (int i = 0; i < claimed.size(); i++) {
+            OutboxMessage message = claimed.get(i);
+            Long id = message.getId();
+            if (!notificationDispatcher.submit(message.getMessage(), () -> delivered.add(id))) {
+                release(claimed.subList(i, claimed.size()));
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void markDelivered() {
+        if (delivered.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(delivered);
+        transactionTemplate.executeWithoutResult(status -> outboxMessageRepository.markSent(ids));
+        ids.forEach(delivered::remove);
+    }
+
+    @Scheduled(cron = "${notification.outbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        long retentionMillis = retention.toMillis();
+        Integer sent = transactionTemplate.execute(status ->
+                outboxMessageRepository.deleteSentBefore(retentionMillis));
+        Integer abandonedRows = transactionTemplate.execute(status ->
+                outboxMessageRepository.deleteAbandonedBefore(retentionMillis));
+        log.info("Purged {} delivered and {} abandoned outbox messages older than {}", sent,
+                abandonedRows, retention);
+    }
+
+    private void abandonExhausted() {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> exhausted = outboxMessageRepository.findExhaustedIds(maxAttempts,
+                    batchSize);
+            if (!exhausted.isEmpty()) {
+                outboxMessageRepository.markAbandoned(exhausted);
+            }
+            return exhausted;
+        });
+        if (ids != null && !ids.isEmpty()) {
+            abandoned.increment(ids.size());
+            log.error("Outbox messages {} were not delivered after {} attempts and will not "
+                    + "be retried", ids, maxAttempts);
+        }
+    }
+
+    private void release(List<OutboxMessage> unsubmitted) {
+        List<Long> ids = unsubmitted.stream()
+                .map(OutboxMessage::getId)
+                .toList();
+        transactionTemplate.executeWithoutResult(status ->
+                outboxMessageRepository.releaseClaims(ids));
+        log.warn("Notification dispatcher is full, released outbox messages {} for the next "
+                + "poll", ids);
+    }
+
+    private List<OutboxMessage> claim(int limit) {
+        List<Long> ids = outboxMessageRepository.findClaimableIds(maxAttempts, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        outboxMessageRepository.claim(ids, claimTtl.toMillis());
+        return outboxMessageRepository.findByIdInOrderByIdAsc(ids);
+    }
+}
@@ -1,31 +1,33 @@
 package accommodation.booking.app.notification.telegram;
 
+import accommodation.booking.app.exception.NotificationException;
+import accommodation.booking.app.notification.NotificationSink;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 @Component
+@ConditionalOnProperty(name = "notification.sink", havingValue = "telegram", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class TelegramNotificationService implements NotificationService {
+public class TelegramNotificationSink implements NotificationSink {
 
     @Value("${telegram.admin.chat-id}")
     private String adminChatId;
 
     private final TelegramBot bot;
 
-    @Async
     @Override
-    public void telegramSendMessage(String message) {
+    public void send(String message) {
         try {
             bot.execute(new SendMessage(adminChatId, message));
             log.info("Telegram notification sent");
         } catch (TelegramApiException e) {
-            log.error("Failed to send Telegram notification", e);
+            throw new NotificationException("Failed to send Telegram notification", e);
         }
     }
 }
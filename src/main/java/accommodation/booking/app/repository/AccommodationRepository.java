@@ -1,9 +1,18 @@
 package accommodation.booking.app.repository;
 
+import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.index.AccommodationAttributes;
+import accommodation.booking.app.index.AmenityAssignment;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Type;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -12,4 +21,26 @@ public interface AccommodationRepository extends JpaRepository<Accommodation, Lo
     Optional<Accommodation> findByTypeAndSizeAndLocationId(Type type, String size, Long locationId);
 
     Optional<Accommodation> findById(Long id);
+
+    @EntityGraph(attributePaths = "amenities")
+    List<Accommodation> findAllByIdInOrderByIdAsc(Collection<Long> ids);
+
+    @Query("select new accommodation.booking.app.dto.accommodation.AccommodationDto("
+            + "a.id, a.type, a.location.id, a.size, a.dailyRate, a.availability) "
+            + "from Accommodation a where a.id > :afterId order by a.id")
+    List<AccommodationDto> findAccommodationDtos(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("select new accommodation.booking.app.index.AccommodationAttributes("
+            + "a.id, a.type, l.city, l.country, a.dailyRate, a.availability) "
+            + "from Accommodation a join a.location l")
+    List<AccommodationAttributes> findAccommodationAttributes();
+
+    @Query("select new accommodation.booking.app.index.AmenityAssignment(a.id, am.id) "
+            + "from Accommodation a join a.amenities am")
+    List<AmenityAssignment> findAmenityAssignments();
+
+    @Query("select new accommodation.booking.app.index.AmenityAssignment(a.id, am.id) "
+            + "from Accommodation a join a.amenities am where a.id in :ids order by a.id, am.id")
+    List<AmenityAssignment> findAmenityAssignmentsByAccommodationIdIn(
+            @Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,16 @@
 package accommodation.booking.app.repository;
 
 import accommodation.booking.app.model.Amenity;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AmenityRepository extends JpaRepository<Amenity, Long> {
     Optional<Amenity> findById(Long id);
+
+    @Query("select a.id from Amenity a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
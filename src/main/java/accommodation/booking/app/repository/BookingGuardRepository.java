@@ -0,0 +1,20 @@
+package accommodation.booking.app.repository;
+
+import accommodation.booking.app.model.BookingGuard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookingGuardRepository extends JpaRepository<BookingGuard, Long> {
+
+    @Modifying
+    @Query(value = """
+            insert into booking_guards (accommodation_id, version)
+            values (:accommodationId, 1)
+            on duplicate key update version = version + 1
+            """, nativeQuery = true)
+    int acquire(@Param("accommodationId") Long accommodationId);
+}
@@ -1,11 +1,20 @@
 package accommodation.booking.app.repository;
 
+import accommodation.booking.app.deadline.ScheduledBooking;
+import accommodation.booking.app.dto.booking.BookingDto;
+import accommodation.booking.app.dto.booking.ExpiringBookingDto;
+import accommodation.booking.app.index.BookingInterval;
 import accommodation.booking.app.model.Booking;
 import accommodation.booking.app.model.Status;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,39 +23,188 @@ import org.springframework.stereotype.Repository;
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     @Query("""
-            select b from Booking b
+            select count(b) from Booking b
              where b.user.id = :userId
                and b.status = :status
                and b.isDeleted = false
             """)
-    List<Booking> findByUserIdAndStatus(@Param("userId") Long userId,
-                                        @Param("status") Status status);
+    long countByUserIdAndStatus(@Param("userId") Long userId, @Param("status") Status status);
 
-    List<Booking> findByUserId(Long userId);
+    @Query("""
+            select new accommodation.booking.app.dto.booking.BookingDto(
+                   b.id, b.checkInDate, b.checkOutDate, b.accommodation.id, b.user.id, b.status)
+              from Booking b
+             where b.user.id = :userId
+               and b.id > :afterId
+             order by b.id
+            """)
+    List<BookingDto> findBookingDtosByUserId(@Param("userId") Long userId,
+                                             @Param("afterId") Long afterId, Limit limit);
 
     @Query("""
-           select b from Booking b
-            where b.accommodation.id = :accommodationId
-              and b.checkInDate < :checkOutDate
-              and b.checkOutDate > :checkInDate
-              and b.status not in :nonReservedStatuses
+            select new accommodation.booking.app.dto.booking.BookingDto(
+                   b.id, b.checkInDate, b.checkOutDate, b.accommodation.id, b.user.id, b.status)
+              from Booking b
+             where b.user.id = :userId
+               and b.status = :status
+               and b.id > :afterId
+             order by b.id
             """)
-    List<Booking> findReservedAccommodations(@Param("accommodationId") Long accommodationId,
+    List<BookingDto> findBookingDtosByUserIdAndStatus(@Param("userId") Long userId,
+                                                      @Param("status") Status status,
+                                                      @Param("afterId") Long afterId,
+                                                      Limit limit);
+
+    @Query(value = """
+            select b.id from bookings b
+             where b.accommodation_id = :accommodationId
+               and b.check_in_date < :checkOutDate
+               and b.check_out_date > :checkInDate
+               and b.status not in (:nonReservedStatuses)
+               and b.is_deleted = false
+             limit 1
+             for share
+            """, nativeQuery = true)
+    List<Long> findOverlappingBookingIdsForShare(@Param("accommodationId") Long accommodationId,
             @Param("checkInDate") LocalDate checkInDate,
             @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("nonReservedStatuses") Collection<String> nonReservedStatuses);
+
+    @Query(value = """
+            select b.id from bookings b
+             where b.accommodation_id = :accommodationId
+               and b.id <> :bookingId
+               and b.check_in_date < :checkOutDate
+               and b.check_out_date > :checkInDate
+               and b.status not in (:nonReservedStatuses)
+               and b.is_deleted = false
+             limit 1
+             for share
+            """, nativeQuery = true)
+    List<Long> findOtherOverlappingBookingIdsForShare(@Param("bookingId") Long bookingId,
+            @Param("accommodationId") Long accommodationId,
+            @Param("checkInDate") LocalDate checkInDate,
+            @Param("checkOutDate") LocalDate checkOutDate,
+            @Param("nonReservedStatuses") Collection<String> nonReservedStatuses);
+
+    @Query("""
+            select new accommodation.booking.app.index.BookingInterval(
+                   b.id, b.accommodation.id, b.checkInDate, b.checkOutDate)
+              from Booking b
+             where b.checkOutDate > :from
+               and b.status not in :nonReservedStatuses
+            """)
+    List<BookingInterval> findReservedIntervals(
+            @Param("from") LocalDate from,
             @Param("nonReservedStatuses") Set<Status> nonReservedStatuses);
 
     @Query("""
+            select new accommodation.booking.app.index.BookingInterval(
+                   b.id, b.accommodation.id, b.checkInDate, b.checkOutDate)
+              from Booking b
+             where b.accommodation.id = :accommodationId
+               and b.checkOutDate > :from
+               and b.status not in :nonReservedStatuses
+            """)
+    List<BookingInterval> findReservedIntervalsByAccommodationId(
+            @Param("accommodationId") Long accommodationId,
+            @Param("from") LocalDate from,
+            @Param("nonReservedStatuses") Set<Status> nonReservedStatuses);
 
-            select b
-             from Booking b
-             join fetch b.accommodation a
-             join fetch b.user u
-            where b.checkOutDate <= :checkOut
-            and b.status in :activeStatuses
+    @Modifying
+    @Query("""
+            update Booking b
+               set b.status = :to
+             where b.id = :id
+               and b.status = :from
             """)
-    List<Booking> findBookingsToExpire(@Param("checkOut") LocalDate today,
-                                       @Param("activeStatuses") Set<Status> activeStatuses);
+    int updateStatus(@Param("id") Long id, @Param("from") Status from, @Param("to") Status to);
+
+    @Query("""
+            select new accommodation.booking.app.dto.booking.ExpiringBookingDto(
+                   b.id, b.accommodation.id, b.user.id, b.user.email, b.checkInDate,
+                   b.checkOutDate)
+              from Booking b
+             where b.id > :afterId
+               and b.checkOutDate <= :checkOut
+               and b.status in :activeStatuses
+               and mod(b.accommodation.id, :partitions) = :partition
+             order by b.id
+            """)
+    List<ExpiringBookingDto> findExpiringBookings(@Param("afterId") Long afterId,
+            @Param("checkOut") LocalDate today,
+            @Param("activeStatuses") Set<Status> activeStatuses,
+            @Param("partition") int partition,
+            @Param("partitions") int partitions,
+            Limit limit);
+
+    @Modifying
+    @Query("""
+            update Booking b
+               set b.status = :expired
+             where b.id in :ids
+               and b.status in :activeStatuses
+            """)
+    int expireBookings(@Param("ids") Collection<Long> ids,
+                       @Param("activeStatuses") Set<Status> activeStatuses,
+                       @Param("expired") Status expired);
+
+    @Query("""
+            select new accommodation.booking.app.dto.booking.ExpiringBookingDto(
+                   b.id, b.accommodation.id, b.user.id, b.user.email, b.checkInDate,
+                   b.checkOutDate)
+              from Booking b
+             where b.id = :id
+            """)
+    Optional<ExpiringBookingDto> findExpiringBookingById(@Param("id") Long id);
+
+    @Modifying
+    @Query("""
+            update Booking b
+               set b.status = :expired
+             where b.id = :id
+               and b.checkOutDate <= :checkOut
+               and b.status in :activeStatuses
+            """)
+    int expireCheckedOutBooking(@Param("id") Long id,
+                                @Param("checkOut") LocalDate today,
+                                @Param("activeStatuses") Set<Status> activeStatuses,
+                                @Param("expired") Status expired);
+
+    @Modifying
+    @Query("""
+            update Booking b
+               set b.status = :expired
+             where b.id = :id
+               and b.status = :pending
+               and b.createdAt <= :createdBefore
+               and not exists (select p.id from Payment p
+                                where p.bookingId.id = b.id
+                                  and p.status = :pending)
+            """)
+    int expireUnpaidHold(@Param("id") Long id,
+                         @Param("createdBefore") LocalDateTime createdBefore,
+                         @Param("pending") Status pending,
+                         @Param("expired") Status expired);
+
+    @Query("""
+            select new accommodation.booking.app.deadline.ScheduledBooking(
+                   b.id, b.status, b.checkOutDate, b.createdAt)
+              from Booking b
+             where b.status in :activeStatuses
+            """)
+    List<ScheduledBooking> findScheduledBookings(
+            @Param("activeStatuses") Set<Status> activeStatuses);
+
+    @Query(value = """
+            select b.id from bookings b
+             where b.id in (:ids)
+               and b.status in (:activeStatuses)
+             order by b.id
+             for update skip locked
+            """, nativeQuery = true)
+    List<Long> lockActiveIds(@Param("ids") Collection<Long> ids,
+                             @Param("activeStatuses") Collection<String> activeStatuses);
 
     @Query("""
             select (count(b) > 0)
@@ -0,0 +1,93 @@
+package accommodation.booking.app.repository;
+
+import accommodation.booking.app.model.OutboxMessage;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert into notification_outbox (message, attempts, created_at, next_attempt_at)
+            values (:message, 0, now(6), now(6))
+            """, nativeQuery = true)
+    int enqueue(@Param("message") String message);
+
+    @Query(value = """
+            select o.id from notification_outbox o
+             where o.sent_at is null
+               and o.next_attempt_at <= now(6)
+               and o.attempts < :maxAttempts
+             order by o.id
+             limit :limit
+             for update skip locked
+            """, nativeQuery = true)
+    List<Long> findClaimableIds(@Param("maxAttempts") int maxAttempts,
+                                @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            update notification_outbox
+               set attempts = attempts + 1,
+                   next_attempt_at = date_add(now(6), interval :claimMillis * 1000 microsecond)
+             where id in (:ids)
+            """, nativeQuery = true)
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimMillis") long claimMillis);
+
+    @Modifying
+    @Query(value = """
+            update notification_outbox
+               set attempts = attempts - 1,
+                   next_attempt_at = now(6)
+             where id in (:ids)
+               and sent_at is null
+            """, nativeQuery = true)
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+
+    @Query(value = """
+            select o.id from notification_outbox o
+             where o.sent_at is null
+               and o.next_attempt_at <= now(6)
+               and o.attempts >= :maxAttempts
+               and o.abandoned_at is null
+             order by o.id
+             limit :limit
+             for update skip locked
+            """, nativeQuery = true)
+    List<Long> findExhaustedIds(@Param("maxAttempts") int maxAttempts,
+                                @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "update notification_outbox set abandoned_at = now(6) where id in (:ids)",
+            nativeQuery = true)
+    int markAbandoned(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "update notification_outbox set sent_at = now(6) where id in (:ids)",
+            nativeQuery = true)
+    int markSent(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = """
+            delete from notification_outbox
+             where sent_at < date_sub(now(6), interval :retentionMillis * 1000 microsecond)
+            """, nativeQuery = true)
+    int deleteSentBefore(@Param("retentionMillis") long retentionMillis);
+
+    @Modifying
+    @Query(value = """
+            delete from notification_outbox
+             where abandoned_at < date_sub(now(6), interval :retentionMillis * 1000 microsecond)
+            """, nativeQuery = true)
+    int deleteAbandonedBefore(@Param("retentionMillis") long retentionMillis);
+
+    List<OutboxMessage> findByIdInOrderByIdAsc(Collection<Long> ids);
+}
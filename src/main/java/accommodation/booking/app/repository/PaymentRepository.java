@@ -1,16 +1,86 @@
 package accommodation.booking.app.repository;
 
+import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.model.Payment;
 import accommodation.booking.app.model.Status;
+import java.net.URL;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     List<Payment> findAllByBookingId_User_Id(Long userId);
 
-    Optional<Payment> findBySessionId(String sessionId);
+    @Query("""
+            select new accommodation.booking.app.dto.payment.PaymentDto(
+                   p.id, p.bookingId.id, p.status, p.amountToPay, p.sessionId, p.sessionUrl)
+              from Payment p
+             where p.bookingId.user.id = :userId
+               and p.id > :afterId
+             order by p.id
+            """)
+    List<PaymentDto> findPaymentDtosByUserId(@Param("userId") Long userId,
+                                             @Param("afterId") Long afterId, Limit limit);
+
+    default Optional<Payment> findBySessionId(String sessionId) {
+        return findBySessionIdHashAndSessionId(Payment.hashSessionId(sessionId), sessionId);
+    }
+
+    Optional<Payment> findBySessionIdHashAndSessionId(byte[] sessionIdHash, String sessionId);
+
+    default int attachSession(Long id, String sessionId, URL sessionUrl) {
+        return attachSessionIfPending(id, sessionId, Payment.hashSessionId(sessionId),
+                sessionUrl, Status.PENDING);
+    }
+
+    @Modifying
+    @Query("""
+            update Payment p
+               set p.sessionId = :sessionId,
+                   p.sessionIdHash = :sessionIdHash,
+                   p.sessionUrl = :sessionUrl
+             where p.id = :id
+               and p.status = :pending
+            """)
+    int attachSessionIfPending(@Param("id") Long id,
+                               @Param("sessionId") String sessionId,
+                               @Param("sessionIdHash") byte[] sessionIdHash,
+                               @Param("sessionUrl") URL sessionUrl,
+                               @Param("pending") Status pending);
+
+    @Modifying
+    @Query("""
+            update Payment p
+               set p.status = :to
+             where p.id = :id
+               and p.status = :from
+            """)
+    int updateStatus(@Param("id") Long id, @Param("from") Status from, @Param("to") Status to);
+
+    Optional<Payment> findByBookingId_IdAndStatus(Long bookingId, Status status);
 
     List<Payment> findAllByBookingId_User_IdAndStatus(Long userId, Status status);
+
+    @Query("""
+            select p from Payment p
+             where p.id > :afterId
+               and p.status = :status
+               and mod(p.id, :partitions) = :partition
+             order by p.id
+            """)
+    List<Payment> findReconcilablePayments(@Param("afterId") Long afterId,
+                                           @Param("status") Status status,
+                                           @Param("partition") int partition,
+                                           @Param("partitions") int partitions,
+                                           Limit limit);
+
+    @EntityGraph(attributePaths = {"bookingId", "bookingId.user"})
+    List<Payment> findByIdIn(Collection<Long> ids);
 }
@@ -2,12 +2,19 @@ package accommodation.booking.app.repository;
 
 import accommodation.booking.app.model.Role;
 import accommodation.booking.app.model.RoleName;
+import jakarta.persistence.QueryHint;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "roles-by-name")
+    })
     Optional<Role> findByRoleName(RoleName roleName);
 }
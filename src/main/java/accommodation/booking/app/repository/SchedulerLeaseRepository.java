@@ -0,0 +1,58 @@
+package accommodation.booking.app.repository;
+
+import accommodation.booking.app.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert ignore into scheduler_leases (name, owner, expires_at)
+            values (:name, null, null)
+            """, nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update scheduler_leases
+               set owner = :owner,
+                   expires_at = date_add(now(6), interval :ttlMillis * 1000 microsecond)
+             where name = :name
+               and (owner = :owner or expires_at is null or expires_at < now(6))
+            """, nativeQuery = true)
+    int acquire(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("ttlMillis") long ttlMillis);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update scheduler_leases
+               set expires_at = date_add(now(6), interval :ttlMillis * 1000 microsecond)
+             where name = :name
+               and owner = :owner
+               and expires_at >= now(6)
+            """, nativeQuery = true)
+    int renew(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("ttlMillis") long ttlMillis);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            update scheduler_leases
+               set owner = null,
+                   expires_at = null
+             where name = :name
+               and owner = :owner
+            """, nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
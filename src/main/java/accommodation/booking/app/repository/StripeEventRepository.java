@@ -0,0 +1,74 @@
+package accommodation.booking.app.repository;
+
+import accommodation.booking.app.model.StripeEvent;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface StripeEventRepository extends JpaRepository<StripeEvent, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            insert ignore into stripe_events
+                   (event_id, type, session_id, payment_status, received_at, next_attempt_at)
+            values (:eventId, :type, :sessionId, :paymentStatus, now(6), now(6))
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("type") String type,
+                       @Param("sessionId") String sessionId,
+                       @Param("paymentStatus") String paymentStatus);
+
+    @Query(value = """
+            select e.event_id from stripe_events e
+             where e.processed_at is null
+               and e.next_attempt_at <= now(6)
+             order by e.received_at, e.event_id
+             limit :limit
+             for update skip locked
+            """, nativeQuery = true)
+    List<String> findPendingIds(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            update stripe_events
+               set next_attempt_at = date_add(now(6), interval :claimMillis * 1000 microsecond)
+             where event_id in (:ids)
+            """, nativeQuery = true)
+    int claim(@Param("ids") Collection<String> ids, @Param("claimMillis") long claimMillis);
+
+    @Modifying
+    @Query(value = "update stripe_events set processed_at = now(6) where event_id in (:ids)",
+            nativeQuery = true)
+    int markProcessed(@Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query(value = """
+            update stripe_events
+               set attempts = :attempts,
+                   last_error = :error
+             where event_id = :id
+            """, nativeQuery = true)
+    int recordFailure(@Param("id") String id, @Param("attempts") int attempts,
+                      @Param("error") String error);
+
+    @Modifying
+    @Query(value = """
+            update stripe_events
+               set attempts = :attempts,
+                   last_error = :error,
+                   failed_at = now(6),
+                   processed_at = now(6)
+             where event_id = :id
+            """, nativeQuery = true)
+    int markFailed(@Param("id") String id, @Param("attempts") int attempts,
+                   @Param("error") String error);
+
+    List<StripeEvent> findByEventIdInOrderByReceivedAtAscEventIdAsc(Collection<String> ids);
+}
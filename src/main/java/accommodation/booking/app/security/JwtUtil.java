@@ -1,28 +1,52 @@
 package accommodation.booking.app.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
-import java.util.function.Function;
-import lombok.Data;
+import java.util.HexFormat;
+import lombok.AccessLevel;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
-@Data
 public class JwtUtil {
-    private long expiration;
-    private Key secret;
+    private final long expiration;
+    private final Key secret;
+    private final JwtParser parser;
+    @Getter(AccessLevel.PACKAGE)
+    private final Cache<String, Claims> claimsCache;
 
     public JwtUtil(
             @Value("${jwt.expiration}") long expiration,
-            @Value("${jwt.secret}") String key) {
+            @Value("${jwt.secret}") String key,
+            @Value("${jwt.claims-cache.max-size:10000}") long claimsCacheSize,
+            MeterRegistry meterRegistry) {
         this.expiration = expiration;
         secret = Keys.hmacShaKeyFor(key.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .setSigningKey(secret)
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(Expiry.creating((String digest, Claims claims) ->
+                        timeToExpiration(claims)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "jwt.claims");
     }
 
     public String generateToken(String username) {
@@ -34,25 +58,43 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean isValidToken(String token) {
-        Jws<Claims> claimsJwe = Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token);
+    public Claims getVerifiedClaims(String token) {
+        String digest = digest(token);
+        Claims claims = claimsCache.get(digest, ignored -> parse(token));
+        if (claims.getExpiration().before(new Date())) {
+            claimsCache.invalidate(digest);
+            return parse(token);
+        }
+        return claims;
+    }
 
-        return !claimsJwe.getBody().getExpiration().before(new Date());
+    public boolean isValidToken(String token) {
+        return !getVerifiedClaims(token).getExpiration().before(new Date());
     }
 
     public String getUsername(String token) {
-        return getClaimFromToken(token, Claims::getSubject);
+        return getVerifiedClaims(token).getSubject();
     }
 
-    private <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = Jwts.parser()
-                .setSigningKey(secret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claimsResolver.apply(claims);
+    private Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private static Duration timeToExpiration(Claims claims) {
+        Date expiresAt = claims.getExpiration();
+        if (expiresAt == null) {
+            return Duration.ZERO;
+        }
+        Duration remaining = Duration.between(Instant.now(), expiresAt.toInstant());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static String digest(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -1,19 +1,33 @@
 package accommodation.booking.app.service;
 
 import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchResultDto;
 import accommodation.booking.app.dto.accommodation.AccommodationUpdateRequestDto;
+import accommodation.booking.app.dto.accommodation.AvailabilityDto;
 import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto;
-import java.util.List;
+import accommodation.booking.app.dto.accommodation.MonthAvailabilityDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
+import java.time.LocalDate;
+import java.time.YearMonth;
 
 public interface AccommodationService {
 
     AccommodationDto createAccommodation(CreateAccommodationRequestDto accommodationRequestDto);
 
-    List<AccommodationDto> getAccommodations();
+    CursorPageDto<AccommodationDto> getAccommodations(CursorPageRequestDto pageRequest);
+
+    AccommodationSearchResultDto searchAccommodations(
+            AccommodationSearchParametersDto searchParameters, CursorPageRequestDto pageRequest);
 
     AccommodationDto getAccommodation(Long id);
 
     AccommodationDto updateAccommodation(Long id, AccommodationUpdateRequestDto accommodationDto);
 
     void deleteAccommodation(Long id);
+
+    AvailabilityDto getAvailability(Long id, LocalDate from, LocalDate to);
+
+    MonthAvailabilityDto getMonthAvailability(Long id, YearMonth month);
 }
@@ -3,17 +3,20 @@ package accommodation.booking.app.service;
 import accommodation.booking.app.dto.booking.BookingDto;
 import accommodation.booking.app.dto.booking.BookingUpdateRequestDto;
 import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
-import java.util.List;
 
 public interface BookingService {
 
     BookingDto createBooking(@Valid CreateBookingRequestDto bookingRequestDtoDto, String userEmail);
 
-    List<BookingDto> getBookingsByUserIdAndStatus(Long id, String status);
+    CursorPageDto<BookingDto> getBookingsByUserIdAndStatus(Long id, String status,
+                                                           CursorPageRequestDto pageRequest);
 
-    List<BookingDto> getUserBookings(String userEmail);
+    CursorPageDto<BookingDto> getUserBookings(String userEmail,
+                                              CursorPageRequestDto pageRequest);
 
     BookingDto getBookingById(Long id);
 
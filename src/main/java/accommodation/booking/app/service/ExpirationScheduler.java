@@ -1,17 +1,48 @@
 package accommodation.booking.app.service;
 
+import accommodation.booking.app.lock.PartitionedLeaseRunner;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
+import java.time.Duration;
 import java.time.LocalDate;
-import lombok.RequiredArgsConstructor;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 @Service
-@RequiredArgsConstructor
 public class ExpirationScheduler {
-    private final BookingService bookingService;
+    private static final String JOB = "booking-expiration";
+
+    private final PartitionedLeaseRunner partitionedLeaseRunner;
+    private final BookingExpirationProcessor bookingExpirationProcessor;
+    private final NotificationService notificationService;
+    private final int partitions;
+    private final Duration leaseTtl;
+
+    public ExpirationScheduler(PartitionedLeaseRunner partitionedLeaseRunner,
+                               BookingExpirationProcessor bookingExpirationProcessor,
+                               NotificationService notificationService,
+                               @Value("${booking.expiration.partitions:4}") int partitions,
+                               @Value("${booking.expiration.lease-ttl:PT10M}") Duration leaseTtl) {
+        this.partitionedLeaseRunner = partitionedLeaseRunner;
+        this.bookingExpirationProcessor = bookingExpirationProcessor;
+        this.notificationService = notificationService;
+        this.partitions = partitions;
+        this.leaseTtl = leaseTtl;
+    }
 
     @Scheduled(cron = "5 0 0 * * *")
     public void expireBookings() {
-        bookingService.expireOldBookings(LocalDate.now());
+        LocalDate today = LocalDate.now();
+        AtomicInteger expired = new AtomicInteger();
+        List<Integer> claimed = partitionedLeaseRunner.run(JOB, partitions, leaseTtl,
+                (partition, leaseHeld) -> expired.addAndGet(bookingExpirationProcessor.expire(
+                        today, partition, partitions, leaseHeld)));
+        if (!claimed.isEmpty() && expired.get() == 0) {
+            notificationService.telegramSendMessage("No expired bookings today in partitions "
+                    + claimed + " of " + partitions + "!");
+        }
     }
 }
@@ -0,0 +1,39 @@
+package accommodation.booking.app.service;
+
+import accommodation.booking.app.lock.PartitionedLeaseRunner;
+import accommodation.booking.app.service.impl.PaymentReconciliationProcessor;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@ConditionalOnProperty(name = "payment.reconciliation.enabled", havingValue = "true",
+        matchIfMissing = true)
+public class PaymentReconciliationScheduler {
+    private static final String JOB = "payment-reconciliation";
+
+    private final PartitionedLeaseRunner partitionedLeaseRunner;
+    private final PaymentReconciliationProcessor paymentReconciliationProcessor;
+    private final int partitions;
+    private final Duration leaseTtl;
+
+    public PaymentReconciliationScheduler(
+            PartitionedLeaseRunner partitionedLeaseRunner,
+            PaymentReconciliationProcessor paymentReconciliationProcessor,
+            @Value("${payment.reconciliation.partitions:4}") int partitions,
+            @Value("${payment.reconciliation.lease-ttl:PT10M}") Duration leaseTtl) {
+        this.partitionedLeaseRunner = partitionedLeaseRunner;
+        this.paymentReconciliationProcessor = paymentReconciliationProcessor;
+        this.partitions = partitions;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconciliation.interval-ms:900000}",
+            initialDelayString = "${payment.reconciliation.initial-delay-ms:60000}")
+    public void reconcilePayments() {
+        partitionedLeaseRunner.run(JOB, partitions, leaseTtl, (partition, leaseHeld) ->
+                paymentReconciliationProcessor.reconcile(partition, partitions, leaseHeld));
+    }
+}
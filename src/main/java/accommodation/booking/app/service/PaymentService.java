@@ -1,13 +1,15 @@
 package accommodation.booking.app.service;
 
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.dto.payment.CreatePaymentRequestDto;
 import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.dto.payment.PaymentResponseDto;
-import java.util.List;
 
 public interface PaymentService {
 
-    List<PaymentDto> getAllPaymentsByUserId(Long id, String userEmail);
+    CursorPageDto<PaymentDto> getAllPaymentsByUserId(Long id, String userEmail,
+                                                     CursorPageRequestDto pageRequest);
 
     PaymentDto createPaymentSession(CreatePaymentRequestDto createPaymentRequestDto,
                                     String userEmail);
@@ -0,0 +1,19 @@
+package accommodation.booking.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class StripeEventScheduler {
+    private final StripeWebhookService stripeWebhookService;
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.poll-interval-ms:1000}")
+    public void applyEvents() {
+        int applied;
+        do {
+            applied = stripeWebhookService.applyPendingEvents();
+        } while (applied > 0);
+    }
+}
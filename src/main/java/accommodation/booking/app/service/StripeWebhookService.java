@@ -0,0 +1,8 @@
+package accommodation.booking.app.service;
+
+public interface StripeWebhookService {
+
+    void receive(String payload, String signatureHeader);
+
+    int applyPendingEvents();
+}
@@ -1,20 +1,41 @@
 package accommodation.booking.app.service.impl;
 
 import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchResultDto;
 import accommodation.booking.app.dto.accommodation.AccommodationUpdateRequestDto;
+import accommodation.booking.app.dto.accommodation.AvailabilityDto;
 import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto;
+import accommodation.booking.app.dto.accommodation.DayAvailabilityDto;
+import accommodation.booking.app.dto.accommodation.MonthAvailabilityDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.exception.AccommodationException;
 import accommodation.booking.app.exception.EntityNotFoundException;
+import accommodation.booking.app.index.AccommodationSearchIndex;
+import accommodation.booking.app.index.AmenityAssignment;
+import accommodation.booking.app.index.AvailabilityCalendar;
 import accommodation.booking.app.mapper.AccommodationMapper;
 import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Amenity;
+import accommodation.booking.app.model.BookingGuard;
 import accommodation.booking.app.model.Location;
 import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.AccommodationRepository;
 import accommodation.booking.app.repository.AmenityRepository;
+import accommodation.booking.app.repository.BookingGuardRepository;
 import accommodation.booking.app.repository.LocationRepository;
 import accommodation.booking.app.service.AccommodationService;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +49,9 @@ public class AccommodationServiceImpl implements AccommodationService {
     private final NotificationService notifier;
     private final LocationRepository locationRepository;
     private final AmenityRepository amenityRepository;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final AccommodationSearchIndex accommodationSearchIndex;
+    private final BookingGuardRepository bookingGuardRepository;
 
     @Override
     @Transactional
@@ -44,18 +68,67 @@ public class AccommodationServiceImpl implements AccommodationService {
                 accommodationRequestDto.locationId()).orElseThrow(
                     () -> new EntityNotFoundException("Location not found in database")
         );
-        Accommodation accommodation = accommodationMapper.toEntity(accommodationRequestDto);
+        Accommodation accommodation = accommodationMapper.toEntity(accommodationRequestDto)
+                .setLocation(location);
         Accommodation safedAccommodation = accommodationRepository.save(accommodation);
+        // Without its guard row the first booking's upsert in BookingGuardRepository.acquire
+        // takes a gap lock, and two such upserts on a new accommodation can deadlock.
+        bookingGuardRepository.save(new BookingGuard()
+                .setAccommodationId(safedAccommodation.getId())
+                .setVersion(0L));
+        accommodationSearchIndex.register(safedAccommodation);
         notifier.telegramSendMessage(createAccommodationMessage(safedAccommodation, location));
         return accommodationMapper.toDto(safedAccommodation);
     }
 
     @Override
-    public List<AccommodationDto> getAccommodations() {
-        List<Accommodation> accommodationList = accommodationRepository.findAll();
-        return accommodationList.stream()
+    public CursorPageDto<AccommodationDto> getAccommodations(CursorPageRequestDto pageRequest) {
+        List<AccommodationDto> accommodationList = accommodationRepository
+                .findAccommodationDtos(pageRequest.afterId(), pageRequest.fetchLimit());
+        if (accommodationList.isEmpty()) {
+            return CursorPageDto.of(accommodationList, pageRequest, AccommodationDto::id,
+                    Function.identity());
+        }
+        Map<Long, List<Long>> amenityIds = accommodationRepository
+                .findAmenityAssignmentsByAccommodationIdIn(accommodationList.stream()
+                        .map(AccommodationDto::id)
+                        .toList()).stream()
+                .collect(Collectors.groupingBy(AmenityAssignment::accommodationId,
+                        Collectors.mapping(AmenityAssignment::amenityId, Collectors.toList())));
+        return CursorPageDto.of(accommodationList, pageRequest, AccommodationDto::id,
+                accommodation -> accommodation.withAmenityIds(
+                        amenityIds.getOrDefault(accommodation.id(), List.of())));
+    }
+
+    @Override
+    public AccommodationSearchResultDto searchAccommodations(
+            AccommodationSearchParametersDto searchParameters, CursorPageRequestDto pageRequest) {
+        if ((searchParameters.checkInDate() == null) != (searchParameters.checkOutDate() == null)) {
+            throw new AccommodationException("Both check in and check out dates are required");
+        }
+        if (searchParameters.checkInDate() != null
+                && !searchParameters.checkInDate().isBefore(searchParameters.checkOutDate())) {
+            throw new AccommodationException("Check in date must be before check out date");
+        }
+        BitSet matches = accommodationSearchIndex.search(searchParameters);
+        long afterId = pageRequest.afterId();
+        int pageSize = pageRequest.pageSize();
+        List<Long> pageIds = matches.stream()
+                .filter(id -> id > afterId)
+                .limit(pageSize + 1L)
+                .mapToObj(Long::valueOf)
+                .toList();
+        boolean hasNextPage = pageIds.size() > pageSize;
+        if (hasNextPage) {
+            pageIds = pageIds.subList(0, pageSize);
+        }
+        List<AccommodationDto> accommodations = accommodationRepository
+                .findAllByIdInOrderByIdAsc(pageIds).stream()
                 .map(accommodationMapper::toDto)
                 .toList();
+        return new AccommodationSearchResultDto(matches.cardinality(), accommodations,
+                hasNextPage ? CursorPageRequestDto.encode(pageIds.getLast()) : null,
+                accommodationSearchIndex.facets(matches));
     }
 
     @Override
@@ -70,11 +143,7 @@ public class AccommodationServiceImpl implements AccommodationService {
                                                 AccommodationUpdateRequestDto accommodationDto) {
         Accommodation accommodation = getAccommodationById(id);
         if (accommodationDto.amenityIds() != null) {
-            accommodation.getAmenities().clear();
-            accommodation.getAmenities().addAll(
-                    accommodationDto.amenityIds().stream()
-                            .map(accommodationMapper::mapIdToAmenities)
-                            .toList());
+            updateAmenities(accommodation.getAmenities(), accommodationDto.amenityIds());
         }
         if (accommodationDto.dailyRate() != null) {
             accommodation.setDailyRate(accommodationDto.dailyRate());
@@ -83,6 +152,7 @@ public class AccommodationServiceImpl implements AccommodationService {
             accommodation.setAvailability(accommodationDto.availability());
         }
         accommodationRepository.save(accommodation);
+        accommodationSearchIndex.register(accommodation);
         return accommodationMapper.toDto(accommodation);
     }
 
@@ -91,6 +161,49 @@ public class AccommodationServiceImpl implements AccommodationService {
     public void deleteAccommodation(Long id) {
         Accommodation accommodation = getAccommodationById(id);
         accommodationRepository.deleteById(id);
+        accommodationSearchIndex.remove(accommodation.getId());
+    }
+
+    @Override
+    public AvailabilityDto getAvailability(Long id, LocalDate from, LocalDate to) {
+        getAccommodationById(id);
+        if (!from.isBefore(to)) {
+            throw new AccommodationException("From date must be before to date");
+        }
+        if (from.isBefore(availabilityCalendar.horizonStart())) {
+            throw new AccommodationException("Date cannot be in the past");
+        }
+        if (to.isAfter(availabilityCalendar.horizonEnd())) {
+            throw new AccommodationException("Availability is known only until "
+                    + availabilityCalendar.horizonEnd());
+        }
+        BitSet reservedNights = availabilityCalendar.reservedNights(id, from, to);
+        return new AvailabilityDto(id, from, to, reservedNights.isEmpty(),
+                reservedNights.stream()
+                        .mapToObj(from::plusDays)
+                        .toList());
+    }
+
+    @Override
+    public MonthAvailabilityDto getMonthAvailability(Long id, YearMonth month) {
+        getAccommodationById(id);
+        LocalDate horizonStart = availabilityCalendar.horizonStart();
+        LocalDate horizonEnd = availabilityCalendar.horizonEnd();
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.atEndOfMonth().plusDays(1);
+        if (!monthEnd.isAfter(horizonStart) || !monthStart.isBefore(horizonEnd)) {
+            throw new AccommodationException("Month must be between "
+                    + YearMonth.from(horizonStart) + " and "
+                    + YearMonth.from(horizonEnd.minusDays(1)));
+        }
+        LocalDate from = monthStart.isBefore(horizonStart) ? horizonStart : monthStart;
+        LocalDate to = monthEnd.isAfter(horizonEnd) ? horizonEnd : monthEnd;
+        BitSet reservedNights = availabilityCalendar.reservedNights(id, from, to);
+        List<DayAvailabilityDto> days = monthStart.datesUntil(monthEnd)
+                .map(day -> new DayAvailabilityDto(day, !day.isBefore(from) && day.isBefore(to)
+                        && !reservedNights.get((int) ChronoUnit.DAYS.between(from, day))))
+                .toList();
+        return new MonthAvailabilityDto(id, month, days);
     }
 
     private Accommodation getAccommodationById(Long id) {
@@ -98,10 +211,30 @@ public class AccommodationServiceImpl implements AccommodationService {
                 () -> new EntityNotFoundException("Accommodation not found in database"));
     }
 
+    private void updateAmenities(Set<Amenity> amenities, List<Long> amenityIds) {
+        Set<Long> requestedIds = new HashSet<>(amenityIds);
+        amenities.removeIf(amenity -> !requestedIds.contains(amenity.getId()));
+        Set<Long> currentIds = amenities.stream()
+                .map(Amenity::getId)
+                .collect(Collectors.toSet());
+        requestedIds.stream()
+                .filter(id -> !currentIds.contains(id))
+                .map(accommodationMapper::mapIdToAmenities)
+                .forEach(amenities::add);
+    }
+
     private void checkAmenities(List<Long> amenityIds) {
-        for (Long id : amenityIds) {
-            amenityRepository.findById(id).orElseThrow(() -> new EntityNotFoundException("Amenity "
-                    + id + " not found in database"));
+        if (amenityIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existingIds = new HashSet<>(amenityRepository.findExistingIds(amenityIds));
+        List<Long> missingIds = amenityIds.stream()
+                .filter(id -> !existingIds.contains(id))
+                .distinct()
+                .toList();
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException("Amenity ids " + missingIds
+                    + " not found in database");
         }
     }
 
@@ -0,0 +1,179 @@
+package accommodation.booking.app.service.impl;
+
+import accommodation.booking.app.dto.booking.ExpiringBookingDto;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.BookingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+@Slf4j
+public class BookingExpirationProcessor {
+    private static final Set<Status> ACTIVE_STATUSES =
+            Collections.unmodifiableSet(EnumSet.of(Status.PENDING, Status.CONFIRMED));
+    private static final List<String> ACTIVE_STATUS_NAMES = ACTIVE_STATUSES.stream()
+            .map(Status::name)
+            .toList();
+
+    private final BookingRepository bookingRepository;
+    private final NotificationService notificationService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PendingBookingCounter pendingBookingCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter expiredRows;
+    private final Timer batchTimer;
+    private final AtomicLong lastRunRowsPerSecond = new AtomicLong();
+    private final int batchSize;
+
+    public BookingExpirationProcessor(BookingRepository bookingRepository,
+                                      NotificationService notificationService,
+                                      BookingIntervalIndex bookingIntervalIndex,
+                                      PendingBookingCounter pendingBookingCounter,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${booking.expiration.batch-size:500}")
+                                      int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.notificationService = notificationService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.pendingBookingCounter = pendingBookingCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.expiredRows = Counter.builder("booking.expiration.rows")
+                .description("Bookings moved to EXPIRED")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("booking.expiration.batch")
+                .description("Time spent expiring one batch of bookings")
+                .register(meterRegistry);
+        Gauge.builder("booking.expiration.rows.per.second", lastRunRowsPerSecond, AtomicLong::get)
+                .description("Expiration throughput of the last run")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+    }
+
+    public int expire(LocalDate today) {
+        int total = expire(today, 0, 1, () -> true);
+        if (total == 0) {
+            notificationService.telegramSendMessage("No expired bookings today!");
+        }
+        return total;
+    }
+
+    public int expire(LocalDate today, int partition, int partitions, BooleanSupplier leaseHeld) {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int total = 0;
+        ExpirationBatch batch;
+        do {
+            long cursor = afterId;
+            batch = batchTimer.record(() -> transactionTemplate.execute(status ->
+                    expireBatch(today, partition, partitions, cursor)));
+            batch.expired().forEach(this::released);
+            expiredRows.increment(batch.expired().size());
+            total += batch.expired().size();
+            afterId = batch.lastScannedId();
+        } while (batch.scanned() == batchSize && leaseHeld.getAsBoolean());
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                System.nanoTime() - started));
+        lastRunRowsPerSecond.set(total * 1000L / elapsedMillis);
+        log.info("Expired {} bookings of partition {}/{} in {} ms ({} rows/s)", total,
+                partition, partitions, elapsedMillis, lastRunRowsPerSecond.get());
+        return total;
+    }
+
+    public boolean expireCheckedOut(Long bookingId, LocalDate today) {
+        return expireSingle(bookingId, () -> bookingRepository.expireCheckedOutBooking(
+                bookingId, today, ACTIVE_STATUSES, Status.EXPIRED));
+    }
+
+    public boolean expireUnpaidHold(Long bookingId, LocalDateTime createdBefore) {
+        return expireSingle(bookingId, () -> bookingRepository.expireUnpaidHold(
+                bookingId, createdBefore, Status.PENDING, Status.EXPIRED));
+    }
+
+    private ExpirationBatch expireBatch(LocalDate today, int partition, int partitions,
+                                        long afterId) {
+        List<ExpiringBookingDto> candidates = bookingRepository.findExpiringBookings(
+                afterId, today, ACTIVE_STATUSES, partition, partitions, Limit.of(batchSize));
+        if (candidates.isEmpty()) {
+            return new ExpirationBatch(List.of(), afterId, 0);
+        }
+        List<Long> ids = candidates.stream()
+                .map(ExpiringBookingDto::id)
+                .toList();
+        long lastScannedId = ids.get(ids.size() - 1);
+        // Rows another transaction holds (a payment settling, a cancel) are skipped rather
+        // than waited for; whatever that transaction leaves active is picked up next run.
+        List<Long> lockedIds = bookingRepository.lockActiveIds(ids, ACTIVE_STATUS_NAMES);
+        if (lockedIds.isEmpty()) {
+            return new ExpirationBatch(List.of(), lastScannedId, candidates.size());
+        }
+        int updated = bookingRepository.expireBookings(lockedIds, ACTIVE_STATUSES,
+                Status.EXPIRED);
+        if (updated != lockedIds.size()) {
+            throw new IllegalStateException("Expired " + updated + " of "
+                    + lockedIds.size() + " locked bookings");
+        }
+        Set<Long> expiredIds = new HashSet<>(lockedIds);
+        List<ExpiringBookingDto> expired = candidates.stream()
+                .filter(booking -> expiredIds.contains(booking.id()))
+                .toList();
+        return new ExpirationBatch(expired, lastScannedId, candidates.size());
+    }
+
+    private boolean expireSingle(Long bookingId, IntSupplier update) {
+        ExpiringBookingDto expired = transactionTemplate.execute(status ->
+                update.getAsInt() == 1
+                        ? bookingRepository.findExpiringBookingById(bookingId).orElse(null)
+                        : null);
+        if (expired == null) {
+            return false;
+        }
+        expiredRows.increment();
+        released(expired);
+        return true;
+    }
+
+    private void released(ExpiringBookingDto booking) {
+        bookingIntervalIndex.remove(booking.accommodationId(), booking.id());
+        pendingBookingCounter.invalidate(booking.userId());
+        notificationService.telegramSendMessage("""
+                Booking expired and accommodation released
+                - booking id: %s
+                - accommodation id: %s
+                - user email: %s
+                - check in: %s
+                - check out: %s
+                """.formatted(booking.id(), booking.accommodationId(), booking.userEmail(),
+                booking.checkInDate(), booking.checkOutDate()));
+    }
+
+    private record ExpirationBatch(List<ExpiringBookingDto> expired, long lastScannedId,
+                                   int scanned) {
+    }
+}
@@ -2,11 +2,17 @@ package accommodation.booking.app.service.impl;
 
 import static accommodation.booking.app.model.RoleName.CUSTOMER;
 
+import accommodation.booking.app.deadline.BookingDeadlineQueue;
 import accommodation.booking.app.dto.booking.BookingDto;
 import accommodation.booking.app.dto.booking.BookingUpdateRequestDto;
 import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.exception.BookingException;
 import accommodation.booking.app.exception.EntityNotFoundException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.lock.StripedAccommodationLock;
 import accommodation.booking.app.mapper.BookingMapper;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Booking;
@@ -14,6 +20,7 @@ import accommodation.booking.app.model.Status;
 import accommodation.booking.app.model.User;
 import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.AccommodationRepository;
+import accommodation.booking.app.repository.BookingGuardRepository;
 import accommodation.booking.app.repository.BookingRepository;
 import accommodation.booking.app.repository.UserRepository;
 import accommodation.booking.app.service.BookingService;
@@ -22,6 +29,7 @@ import java.time.LocalDate;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,8 +42,13 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final NotificationService notifier;
-    private final NotificationService notificationService;
     private final AccommodationRepository accommodationRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final StripedAccommodationLock accommodationLock;
+    private final BookingGuardRepository bookingGuardRepository;
+    private final BookingExpirationProcessor bookingExpirationProcessor;
+    private final BookingDeadlineQueue bookingDeadlineQueue;
+    private final PendingBookingCounter pendingBookingCounter;
 
     @Override
     @Transactional
@@ -47,44 +60,45 @@ public class BookingServiceImpl implements BookingService {
                 bookingRequestDtoDto.accommodationId()).orElseThrow(
                     () -> new EntityNotFoundException("Accommodation not found in database"));
         Booking booking = bookingMapper.toEntity(bookingRequestDtoDto);
-        List<Booking> existingBookings = bookingRepository
-                .findReservedAccommodations(booking.getAccommodation().getId(),
-                        booking.getCheckInDate(), booking.getCheckOutDate(),
-                        EnumSet.of(Status.CANCELED, Status.EXPIRED));
-        if (!existingBookings.isEmpty()) {
+        if (bookingIntervalIndex.isReserved(accommodation.getId(),
+                booking.getCheckInDate(), booking.getCheckOutDate())) {
+            throw new BookingException("Accommodation is already booked at the given dates");
+        }
+        accommodationLock.lockUntilTransactionEnds(accommodation.getId());
+        bookingGuardRepository.acquire(accommodation.getId());
+        if (!bookingRepository.findOverlappingBookingIdsForShare(accommodation.getId(),
+                booking.getCheckInDate(), booking.getCheckOutDate(),
+                BookingIntervalIndex.NON_RESERVED_STATUSES.stream()
+                        .map(Status::name)
+                        .toList()).isEmpty()) {
             throw new BookingException("Accommodation is already booked at the given dates");
         }
         booking.setUser(user);
         booking.setStatus(Status.PENDING);
         bookingRepository.save(booking);
+        pendingBookingCounter.invalidate(user.getId());
+        bookingIntervalIndex.register(booking);
+        bookingDeadlineQueue.schedule(booking);
         notifier.telegramSendMessage(createdBookingMessage(booking, accommodation));
         return bookingMapper.toDto(booking);
     }
 
     @Override
-    public List<BookingDto> getBookingsByUserIdAndStatus(Long id, String status) {
-        List<Booking> bookingList =
-                bookingRepository.findByUserIdAndStatus(id, Status.valueOf(status.toUpperCase()));
-        if (bookingList.isEmpty()) {
-            return List.of();
-        } else {
-            return bookingList.stream()
-                    .map(bookingMapper::toDto)
-                    .toList();
-        }
+    public CursorPageDto<BookingDto> getBookingsByUserIdAndStatus(
+            Long id, String status, CursorPageRequestDto pageRequest) {
+        List<BookingDto> bookingList = bookingRepository.findBookingDtosByUserIdAndStatus(id,
+                Status.valueOf(status.toUpperCase()), pageRequest.afterId(),
+                pageRequest.fetchLimit());
+        return CursorPageDto.of(bookingList, pageRequest, BookingDto::id, Function.identity());
     }
 
     @Override
-    public List<BookingDto> getUserBookings(String userEmail) {
+    public CursorPageDto<BookingDto> getUserBookings(String userEmail,
+                                                     CursorPageRequestDto pageRequest) {
         User user = getUser(userEmail);
-        List<Booking> bookingList = bookingRepository.findByUserId(user.getId());
-        if (bookingList.isEmpty()) {
-            return List.of();
-        } else {
-            return bookingList.stream()
-                    .map(bookingMapper::toDto)
-                    .toList();
-        }
+        List<BookingDto> bookingList = bookingRepository.findBookingDtosByUserId(user.getId(),
+                pageRequest.afterId(), pageRequest.fetchLimit());
+        return CursorPageDto.of(bookingList, pageRequest, BookingDto::id, Function.identity());
     }
 
     @Override
@@ -124,6 +138,9 @@ public class BookingServiceImpl implements BookingService {
             checkOutDate = "has been changed to: " + bookingUpdateRequestDto.checkOutDate();
         }
         bookingRepository.save(booking);
+        pendingBookingCounter.invalidate(booking.getUser().getId());
+        bookingIntervalIndex.register(booking);
+        bookingDeadlineQueue.schedule(booking);
         notifier.telegramSendMessage(updateBookingMessage(booking, status, checkInDate,
                 checkOutDate));
         return bookingMapper.toDto(booking);
@@ -134,28 +151,16 @@ public class BookingServiceImpl implements BookingService {
     public void deleteBooking(Long id) {
         Booking booking = findBookingInDb(id);
         bookingRepository.delete(booking);
+        pendingBookingCounter.invalidate(booking.getUser().getId());
+        bookingIntervalIndex.remove(booking.getAccommodation().getId(), booking.getId());
         notifier.telegramSendMessage("Booking with id: " + booking.getId()
                 + " for accommodation with id " + booking.getAccommodation().getId()
                 + " was deleted");
     }
 
     @Override
-    @Transactional
     public void expireOldBookings(LocalDate today) {
-        List<Booking> expiredBookings = bookingRepository
-                .findBookingsToExpire(today, EnumSet.of(Status.PENDING, Status.CONFIRMED));
-
-        if (expiredBookings.isEmpty()) {
-            notificationService.telegramSendMessage("No expired bookings today!");
-            return;
-        }
-
-        for (Booking booking : expiredBookings) {
-            String message = expiredBookingMessage(booking);
-            notificationService.telegramSendMessage(message);
-            booking.setStatus(Status.EXPIRED);
-            bookingRepository.save(booking);
-        }
+        bookingExpirationProcessor.expire(today);
     }
 
     private User getUser(String userEmail) {
@@ -166,9 +171,7 @@ public class BookingServiceImpl implements BookingService {
 
     private void checkUserPayments(User user) {
         if (user.getRole().getRoleName().equals(CUSTOMER)) {
-            List<Booking> pendingUserBookingList =
-                    bookingRepository.findByUserIdAndStatus(user.getId(), Status.PENDING);
-            int nr = pendingUserBookingList.size();
+            long nr = pendingBookingCounter.count(user.getId());
             if (nr == 1) {
                 throw new BookingException("You have 1 unpaid payment. "
                         + "You must pay it or cancel it.");
@@ -241,24 +244,6 @@ public class BookingServiceImpl implements BookingService {
                 status, locationId, dailyRate);
     }
 
-    private String expiredBookingMessage(Booking booking) {
-        Long bookingId = booking.getId();
-        Long accommodationId =
-                booking.getAccommodation() != null ? booking.getAccommodation().getId() : null;
-        String userEmail = booking.getUser() != null ? booking.getUser().getEmail() : null;
-        LocalDate checkInDate = booking.getCheckInDate();
-        LocalDate checkOutDate = booking.getCheckOutDate();
-
-        return """
-                Booking expired and accommodation released
-                - booking id: %s
-                - accommodation id: %s
-                - user email: %s
-                - check in: %s
-                - check out: %s
-                """.formatted(bookingId, accommodationId, userEmail, checkInDate, checkOutDate);
-    }
-
     private String updateBookingMessage(Booking booking, String status, String checkInDate,
                                         String checkOutDate) {
         return """
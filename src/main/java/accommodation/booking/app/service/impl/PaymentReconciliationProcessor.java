@@ -0,0 +1,223 @@
+package accommodation.booking.app.service.impl;
+
+import accommodation.booking.app.model.Payment;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.PaymentRepository;
+import accommodation.booking.app.stripe.CircuitBreaker;
+import accommodation.booking.app.stripe.StripeGateway;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+@Slf4j
+public class PaymentReconciliationProcessor {
+    private static final Duration STALE_RESERVATION = Duration.ofHours(1);
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusUpdater paymentStatusUpdater;
+    private final StripeGateway stripeGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter checked;
+    private final Counter confirmed;
+    private final Counter canceled;
+    private final Counter refundRequired;
+    private final Counter failed;
+    private final Timer pageTimer;
+    private final AtomicLong lastRunRowsPerSecond = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final int pageSize;
+    private final int concurrency;
+    private final Duration sessionTtl;
+
+    public PaymentReconciliationProcessor(PaymentRepository paymentRepository,
+                                          PaymentStatusUpdater paymentStatusUpdater,
+                                          StripeGateway stripeGateway,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${payment.reconciliation.page-size:100}")
+                                          int pageSize,
+                                          @Value("${payment.reconciliation.concurrency:4}")
+                                          int concurrency,
+                                          @Value("${payment.session.ttl:PT23H}")
+                                          Duration sessionTtl) {
+        this.paymentRepository = paymentRepository;
+        this.paymentStatusUpdater = paymentStatusUpdater;
+        this.stripeGateway = stripeGateway;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(
+                TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.checked = Counter.builder("payment.reconciliation.checked")
+                .description("Pending payments compared with Stripe")
+                .register(meterRegistry);
+        this.confirmed = Counter.builder("payment.reconciliation.updated")
+                .tag("outcome", "confirmed")
+                .description("Pending payments settled by reconciliation")
+                .register(meterRegistry);
+        this.canceled = Counter.builder("payment.reconciliation.updated")
+                .tag("outcome", "canceled")
+                .description("Pending payments settled by reconciliation")
+                .register(meterRegistry);
+        this.refundRequired = Counter.builder("payment.reconciliation.updated")
+                .tag("outcome", "refund_required")
+                .description("Pending payments settled by reconciliation")
+                .register(meterRegistry);
+        this.failed = Counter.builder("payment.reconciliation.failed")
+                .description("Sessions that could not be read from Stripe")
+                .register(meterRegistry);
+        this.pageTimer = Timer.builder("payment.reconciliation.page")
+                .description("Time spent reconciling one page of pending payments")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconciliation.rows.per.second", lastRunRowsPerSecond,
+                        AtomicLong::get)
+                .description("Reconciliation throughput of the last run")
+                .register(meterRegistry);
+        Gauge.builder("payment.reconciliation.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest payment left pending by the last run")
+                .register(meterRegistry);
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.sessionTtl = sessionTtl;
+    }
+
+    public int reconcile(int partition, int partitions, BooleanSupplier leaseHeld) {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int scanned = 0;
+        int settled = 0;
+        LocalDateTime oldestPending = null;
+        int lastPageSize;
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            do {
+                List<Payment> page = paymentRepository.findReconcilablePayments(afterId,
+                        Status.PENDING, partition, partitions, Limit.of(pageSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                PageResult result = pageTimer.record(() -> reconcilePage(page, executor));
+                scanned += page.size();
+                settled += result.settled();
+                oldestPending = earliest(oldestPending, result.oldestPending());
+                afterId = page.getLast().getId();
+                lastPageSize = page.size();
+            } while (lastPageSize == pageSize && leaseHeld.getAsBoolean()
+                    && stripeGateway.circuitState() == CircuitBreaker.State.CLOSED);
+        }
+
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(
+                System.nanoTime() - started));
+        lastRunRowsPerSecond.set(scanned * 1000L / elapsedMillis);
+        lagSeconds.set(oldestPending == null ? 0
+                : Duration.between(oldestPending, LocalDateTime.now()).toSeconds());
+        log.info("Reconciled {} pending payments of partition {}/{} in {} ms, settled {}",
+                scanned, partition, partitions, elapsedMillis, settled);
+        return settled;
+    }
+
+    private PageResult reconcilePage(List<Payment> page, ExecutorService executor) {
+        Map<Long, Session> sessions = fetchSessions(page, executor);
+        checked.increment(page.size());
+        return transactionTemplate.execute(status -> apply(page.stream()
+                .map(Payment::getId)
+                .toList(), sessions));
+    }
+
+    private Map<Long, Session> fetchSessions(List<Payment> page, ExecutorService executor) {
+        Map<Long, Future<Session>> requests = new LinkedHashMap<>();
+        for (Payment payment : page) {
+            String sessionId = payment.getSessionId();
+            if (sessionId != null) {
+                requests.put(payment.getId(),
+                        executor.submit(() -> stripeGateway.retrieveSession(sessionId)));
+            }
+        }
+        Map<Long, Session> sessions = new HashMap<>();
+        for (Map.Entry<Long, Future<Session>> request : requests.entrySet()) {
+            try {
+                sessions.put(request.getKey(), request.getValue().get());
+            } catch (ExecutionException e) {
+                failed.increment();
+                log.warn("Could not read Stripe session of payment {}: {}", request.getKey(),
+                        e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return sessions;
+    }
+
+    private PageResult apply(List<Long> ids, Map<Long, Session> sessions) {
+        int settled = 0;
+        LocalDateTime oldestPending = null;
+        LocalDateTime now = LocalDateTime.now();
+        for (Payment payment : paymentRepository.findByIdIn(ids)) {
+            if (settle(payment, sessions.get(payment.getId()), now)) {
+                settled++;
+            } else if (payment.getStatus() == Status.PENDING) {
+                oldestPending = earliest(oldestPending, reservedAt(payment));
+            }
+        }
+        return new PageResult(settled, oldestPending);
+    }
+
+    private boolean settle(Payment payment, Session session, LocalDateTime now) {
+        if (session != null && "complete".equals(session.getStatus())
+                && !"unpaid".equals(session.getPaymentStatus())) {
+            boolean updated = paymentStatusUpdater.confirm(payment);
+            if (updated && payment.getStatus() == Status.CONFIRMED) {
+                confirmed.increment();
+            } else if (updated) {
+                refundRequired.increment();
+            }
+            return updated;
+        }
+        boolean abandoned = payment.getSessionId() == null && reservedAt(payment) != null
+                && reservedAt(payment).isBefore(now.minus(STALE_RESERVATION));
+        if (abandoned || session != null && "expired".equals(session.getStatus())) {
+            boolean updated = paymentStatusUpdater.cancel(payment);
+            if (updated) {
+                canceled.increment();
+            }
+            return updated;
+        }
+        return false;
+    }
+
+    private LocalDateTime reservedAt(Payment payment) {
+        return payment.getSessionExpiresAt() == null ? null
+                : payment.getSessionExpiresAt().minus(sessionTtl);
+    }
+
+    private LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        return candidate == null || current.isBefore(candidate) ? current : candidate;
+    }
+
+    private record PageResult(int settled, LocalDateTime oldestPending) {
+    }
+}
@@ -2,6 +2,8 @@ package accommodation.booking.app.service.impl;
 
 import static accommodation.booking.app.model.RoleName.CUSTOMER;
 
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.dto.payment.CreatePaymentRequestDto;
 import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.dto.payment.PaymentResponseDto;
@@ -9,42 +11,58 @@ import accommodation.booking.app.exception.AccommodationException;
 import accommodation.booking.app.exception.BookingException;
 import accommodation.booking.app.exception.EntityNotFoundException;
 import accommodation.booking.app.exception.PaymentException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
 import accommodation.booking.app.mapper.PaymentMapper;
 import accommodation.booking.app.model.Booking;
 import accommodation.booking.app.model.Payment;
 import accommodation.booking.app.model.Status;
 import accommodation.booking.app.model.User;
-import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.BookingRepository;
 import accommodation.booking.app.repository.PaymentRepository;
 import accommodation.booking.app.repository.UserRepository;
 import accommodation.booking.app.service.PaymentService;
-import com.stripe.Stripe;
-import com.stripe.exception.StripeException;
+import accommodation.booking.app.stripe.CheckoutSessionCache;
+import accommodation.booking.app.stripe.StripeGateway;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.math.BigDecimal;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
     private static final String CURRENCY = "USD";
+    private static final Duration REUSE_MARGIN = Duration.ofMinutes(10);
+    private static final Duration CREATION_GRACE = Duration.ofMinutes(1);
 
     private final PaymentRepository paymentRepository;
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final PaymentMapper paymentMapper;
-    private final NotificationService notifier;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final StripeGateway stripeGateway;
+    private final CheckoutSessionCache checkoutSessionCache;
+    private final PendingBookingCounter pendingBookingCounter;
+    private final PaymentStatusUpdater paymentStatusUpdater;
 
     @Value("${app.base-url}")
     private String baseUrl;
@@ -52,33 +70,186 @@ public class PaymentServiceImpl implements PaymentService {
     @Value("${STRIPE_SECRET_KEY}")
     private String stripeSecretKey;
 
+    @Value("${payment.session.ttl:PT23H}")
+    private Duration sessionTtl;
+
     @Override
-    public List<PaymentDto> getAllPaymentsByUserId(Long id, String userEmail) {
+    public CursorPageDto<PaymentDto> getAllPaymentsByUserId(Long id, String userEmail,
+                                                            CursorPageRequestDto pageRequest) {
         User user = getUser(userEmail);
         if (!Objects.equals(id, user.getId()) && user.getRole().equals(CUSTOMER)) {
             throw new BookingException("Logged user doesn't match with user id in path");
         }
-        return paymentRepository.findAllByBookingId_User_Id(id).stream()
-                .map(paymentMapper::toDto)
-                .toList();
+        return CursorPageDto.of(paymentRepository.findPaymentDtosByUserId(id,
+                        pageRequest.afterId(), pageRequest.fetchLimit()),
+                pageRequest, PaymentDto::id, Function.identity());
     }
 
     @Override
-    @Transactional
     public PaymentDto createPaymentSession(CreatePaymentRequestDto createPaymentRequestDto,
                                            String userEmail) {
+        Reservation reservation = reserve(createPaymentRequestDto, userEmail);
+        if (reservation.openSession() != null) {
+            return reservation.openSession();
+        }
+        Payment payment = reservation.payment();
+        Session session = createStripeSession(payment);
+        URL sessionUrl = toUrl(session.getUrl());
+        Integer attached = transactionTemplate.execute(status ->
+                paymentRepository.attachSession(payment.getId(), session.getId(), sessionUrl));
+        if (attached == null || attached == 0) {
+            throw new PaymentException("Payment " + payment.getId()
+                    + " was canceled while its checkout session was being created");
+        }
+        PaymentDto paymentDto = paymentMapper.toDto(payment.setSessionId(session.getId())
+                .setSessionUrl(sessionUrl));
+        checkoutSessionCache.put(payment.getBookingId().getId(), paymentDto,
+                payment.getSessionExpiresAt());
+        return paymentDto;
+    }
+
+    @Override
+    public PaymentResponseDto paymentSuccess(String sessionId) {
+        Payment payment = getPaymentBySessionId(sessionId);
+        if (payment.getStatus() == Status.CONFIRMED) {
+            PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
+            paymentResponseDto.setMessage("Payment completed");
+            return paymentResponseDto;
+        }
+        validateStripeSecretKey();
+        Session session = stripeGateway.retrieveSession(sessionId);
+        if (!"paid".equalsIgnoreCase(session.getPaymentStatus())) {
+            return paymentMapper.toResponseDto(payment);
+        }
+        return transactionTemplate.execute(status -> {
+            Payment current = getPaymentBySessionId(sessionId);
+            paymentStatusUpdater.confirm(current);
+            PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(current);
+            paymentResponseDto.setMessage(current.getStatus() == Status.CONFIRMED
+                    ? "Payment completed"
+                    : "Booking is no longer available, the payment will be refunded");
+            return paymentResponseDto;
+        });
+    }
+
+    @Override
+    public PaymentResponseDto paymentCancel(String sessionId) {
+        return transactionTemplate.execute(status -> {
+            Payment payment = getPaymentBySessionId(sessionId);
+            Booking booking = getBookingById(payment.getBookingId().getId());
+            if (payment.getStatus() != Status.PENDING || booking.getStatus() != Status.PENDING) {
+                return notCanceled(payment, booking);
+            }
+            if (paymentRepository.updateStatus(payment.getId(), Status.PENDING,
+                    Status.CANCELED) == 0
+                    || bookingRepository.updateStatus(booking.getId(), Status.PENDING,
+                    Status.CANCELED) == 0) {
+                status.setRollbackOnly();
+                PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
+                paymentResponseDto.setMessage("Payment was updated while being canceled, "
+                        + "check its status again");
+                return paymentResponseDto;
+            }
+            payment.setStatus(Status.CANCELED);
+            booking.setStatus(Status.CANCELED);
+            pendingBookingCounter.invalidate(booking.getUser().getId());
+            bookingIntervalIndex.register(booking);
+            checkoutSessionCache.evict(booking.getId());
+            PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
+            paymentResponseDto.setMessage("Payment is canceled and can be made later, "
+                    + "but the session is available only for 24 hours");
+            return paymentResponseDto;
+        });
+    }
+
+    private PaymentResponseDto notCanceled(Payment payment, Booking booking) {
+        PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
+        if (payment.getStatus() == Status.CONFIRMED) {
+            paymentResponseDto.setMessage("Payment already completed and cannot be canceled");
+        } else {
+            paymentResponseDto.setMessage("Payment is " + payment.getStatus()
+                    + " and booking is " + booking.getStatus() + ", nothing to cancel");
+        }
+        return paymentResponseDto;
+    }
+
+    private Reservation reservePayment(CreatePaymentRequestDto createPaymentRequestDto,
+                                   String userEmail) {
         User user = getUser(userEmail);
         Booking booking = getBookingById(createPaymentRequestDto.bookingId());
         validateBooking(booking);
         validateUser(booking.getUser().getId(), user);
         validateStripeSecretKey();
         validateBaseUrl();
-        BigDecimal amountToPay = amountToPay(booking);
-        long amountInCents = toCents(amountToPay);
-        Stripe.apiKey = stripeSecretKey;
+        Optional<PaymentDto> cached = checkoutSessionCache.get(booking.getId(), REUSE_MARGIN);
+        if (cached.isPresent()) {
+            return new Reservation(null, cached.get());
+        }
+        Optional<Payment> pending = paymentRepository.findByBookingId_IdAndStatus(
+                booking.getId(), Status.PENDING);
+        if (pending.isPresent()) {
+            Payment open = pending.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (open.getSessionId() != null && isOpenAt(open, now.plus(REUSE_MARGIN))) {
+                PaymentDto openSession = paymentMapper.toDto(open);
+                checkoutSessionCache.put(booking.getId(), openSession,
+                        open.getSessionExpiresAt());
+                return new Reservation(null, openSession);
+            }
+            if (open.getSessionId() == null
+                    && isOpenAt(open, now.plus(sessionTtl).minus(CREATION_GRACE))) {
+                throw new PaymentException("Payment session for booking " + booking.getId()
+                        + " is already being created, try again shortly");
+            }
+            paymentRepository.saveAndFlush(open.setStatus(Status.CANCELED));
+        }
+        Payment payment = new Payment()
+                .setBookingId(booking)
+                .setAmountToPay(amountToPay(booking))
+                .setStatus(Status.PENDING)
+                .setSessionExpiresAt(LocalDateTime.now().plus(sessionTtl));
+        return new Reservation(paymentRepository.save(payment), null);
+    }
+
+    private Reservation reserve(CreatePaymentRequestDto createPaymentRequestDto,
+                                String userEmail) {
+        try {
+            return transactionTemplate.execute(status ->
+                    reservePayment(createPaymentRequestDto, userEmail));
+        } catch (DataIntegrityViolationException e) {
+            throw new PaymentException("Payment session for booking "
+                    + createPaymentRequestDto.bookingId()
+                    + " is already being created, try again shortly");
+        }
+    }
+
+    private boolean isOpenAt(Payment payment, LocalDateTime time) {
+        return payment.getSessionExpiresAt() != null
+                && payment.getSessionExpiresAt().isAfter(time);
+    }
+
+    private Session createStripeSession(Payment payment) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Session session = stripeGateway.createSession(sessionParams(payment));
+            validateCreatedSession(session);
+            outcome = "success";
+            return session;
+        } finally {
+            sample.stop(meterRegistry.timer("stripe.session.create", "outcome", outcome));
+            if (!"success".equals(outcome)) {
+                abandonPayment(payment);
+            }
+        }
+    }
 
-        SessionCreateParams params = SessionCreateParams.builder()
+    private SessionCreateParams sessionParams(Payment payment) {
+        Booking booking = payment.getBookingId();
+        return SessionCreateParams.builder()
                 .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setExpiresAt(payment.getSessionExpiresAt()
+                        .atZone(ZoneId.systemDefault()).toEpochSecond())
                 .setSuccessUrl(baseUrl + "/payments/success?session_id={CHECKOUT_SESSION_ID}")
                 .setCancelUrl(baseUrl + "/payments/cancel?session_id={CHECKOUT_SESSION_ID}")
                 .addLineItem(
@@ -87,7 +258,7 @@ public class PaymentServiceImpl implements PaymentService {
                                 .setPriceData(
                                         SessionCreateParams.LineItem.PriceData.builder()
                                                 .setCurrency(CURRENCY)
-                                                .setUnitAmount(amountInCents)
+                                                .setUnitAmount(toCents(payment.getAmountToPay()))
                                                 .setProductData(
                                                         SessionCreateParams.LineItem
                                                                 .PriceData.ProductData.builder()
@@ -102,77 +273,11 @@ public class PaymentServiceImpl implements PaymentService {
                 .putMetadata("bookingId", String.valueOf(booking.getId()))
                 .putMetadata("userId", String.valueOf(booking.getUser().getId()))
                 .build();
-
-        try {
-            Session session = Session.create(params);
-            validateCreatedSession(session);
-
-            Payment payment = new Payment()
-                    .setBookingId(booking)
-                    .setAmountToPay(amountToPay)
-                    .setSessionId(session.getId())
-                    .setSessionUrl(toUrl(session.getUrl()))
-                    .setStatus(Status.valueOf("PENDING"));
-
-            Payment savedPayment = paymentRepository.save(payment);
-            return paymentMapper.toDto(savedPayment);
-
-        } catch (StripeException e) {
-            throw new IllegalStateException("Stripe error while creating Checkout session: "
-                    + e.getMessage(), e);
-        } catch (PaymentException e) {
-            throw new IllegalStateException("Failed to create Stripe Checkout session", e);
-        }
     }
 
-    @Override
-    @Transactional
-    public PaymentResponseDto paymentSuccess(String sessionId) {
-        validateStripeSecretKey();
-        Payment payment = getPaymentBySessionId(sessionId);
-        Booking booking = getBookingById(payment.getBookingId().getId());
-        Stripe.apiKey = stripeSecretKey;
-
-        try {
-            Session session = Session.retrieve(sessionId);
-            String paymentStatus = session.getPaymentStatus();
-            if ("paid".equalsIgnoreCase(paymentStatus)) {
-                payment.setStatus(Status.valueOf("CONFIRMED"));
-                booking.setStatus(Status.valueOf("CONFIRMED"));
-                paymentRepository.save(payment);
-                bookingRepository.save(booking);
-                PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
-                paymentResponseDto.setMessage("Payment completed");
-                notifier.telegramSendMessage(paymentSucceededMessage(payment, booking));
-                return paymentResponseDto;
-            }
-            return paymentMapper.toResponseDto(payment);
-        } catch (StripeException e) {
-            throw new IllegalStateException("Stripe error while verifying session "
-                    + sessionId + ": " + e.getMessage(), e);
-        } catch (PaymentException e) {
-            throw new IllegalStateException("Failed to verify Stripe session: " + sessionId, e);
-        }
-    }
-
-    @Override
-    @Transactional
-    public PaymentResponseDto paymentCancel(String sessionId) {
-        Payment payment = getPaymentBySessionId(sessionId);
-        Booking booking = getBookingById(payment.getBookingId().getId());
-        if (payment.getStatus() == Status.CONFIRMED) {
-            PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
-            paymentResponseDto.setMessage("Payment already completed and cannot be canceled");
-            return paymentResponseDto;
-        }
-        payment.setStatus(Status.valueOf("CANCELED"));
-        booking.setStatus(Status.valueOf("CANCELED"));
-        paymentRepository.save(payment);
-        bookingRepository.save(booking);
-        PaymentResponseDto paymentResponseDto = paymentMapper.toResponseDto(payment);
-        paymentResponseDto.setMessage("Payment is canceled and can be made later, "
-                + "but the session is available only for 24 hours");
-        return paymentResponseDto;
+    private void abandonPayment(Payment payment) {
+        transactionTemplate.executeWithoutResult(status ->
+                paymentRepository.save(payment.setStatus(Status.CANCELED)));
     }
 
     private User getUser(String userEmail) {
@@ -259,7 +364,7 @@ public class PaymentServiceImpl implements PaymentService {
         }
     }
 
-    private String paymentSucceededMessage(Payment payment, Booking booking) {
+    static String paymentSucceededMessage(Payment payment, Booking booking) {
         Long bookingId = booking.getId();
         Long accommodationId =
                 booking.getAccommodation() != null ? booking.getAccommodation().getId() : null;
@@ -281,4 +386,7 @@ public class PaymentServiceImpl implements PaymentService {
                 """.formatted(bookingId, accommodationId, paymentId, userEmail, checkInDate,
                 checkOutDate, amountToPay);
     }
+
+    private record Reservation(Payment payment, PaymentDto openSession) {
+    }
 }
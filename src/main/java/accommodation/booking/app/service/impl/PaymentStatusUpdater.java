@@ -0,0 +1,87 @@
+package accommodation.booking.app.service.impl;
+
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Payment;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.BookingGuardRepository;
+import accommodation.booking.app.repository.BookingRepository;
+import accommodation.booking.app.repository.PaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentStatusUpdater {
+    private final PaymentRepository paymentRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingGuardRepository bookingGuardRepository;
+    private final NotificationService notifier;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final PendingBookingCounter pendingBookingCounter;
+
+    public boolean confirm(Payment payment) {
+        if (payment.getStatus() == Status.CONFIRMED
+                || payment.getStatus() == Status.REFUND_REQUIRED) {
+            return false;
+        }
+        Booking booking = payment.getBookingId();
+        if (payment.getStatus() != Status.PENDING || booking.getStatus() != Status.PENDING
+                || overlapsOtherBooking(booking)) {
+            requireRefund(payment, booking);
+            return true;
+        }
+        payment.setStatus(Status.CONFIRMED);
+        booking.setStatus(Status.CONFIRMED);
+        paymentRepository.save(payment);
+        bookingRepository.save(booking);
+        pendingBookingCounter.invalidate(booking.getUser().getId());
+        bookingIntervalIndex.register(booking);
+        notifier.telegramSendMessage(PaymentServiceImpl.paymentSucceededMessage(payment,
+                booking));
+        return true;
+    }
+
+    public boolean cancel(Payment payment) {
+        if (payment.getStatus() != Status.PENDING) {
+            return false;
+        }
+        Booking booking = payment.getBookingId();
+        paymentRepository.save(payment.setStatus(Status.CANCELED));
+        if (booking.getStatus() == Status.PENDING) {
+            bookingRepository.save(booking.setStatus(Status.CANCELED));
+            pendingBookingCounter.invalidate(booking.getUser().getId());
+            bookingIntervalIndex.register(booking);
+        }
+        return true;
+    }
+
+    private boolean overlapsOtherBooking(Booking booking) {
+        Long accommodationId = booking.getAccommodation().getId();
+        bookingGuardRepository.acquire(accommodationId);
+        return !bookingRepository.findOtherOverlappingBookingIdsForShare(booking.getId(),
+                accommodationId, booking.getCheckInDate(), booking.getCheckOutDate(),
+                BookingIntervalIndex.NON_RESERVED_STATUSES.stream()
+                        .map(Status::name)
+                        .toList()).isEmpty();
+    }
+
+    private void requireRefund(Payment payment, Booking booking) {
+        log.warn("Payment {} was completed but booking {} is {} (payment was {}), "
+                        + "marking it for refund", payment.getId(), booking.getId(),
+                booking.getStatus(), payment.getStatus());
+        paymentRepository.save(payment.setStatus(Status.REFUND_REQUIRED));
+        notifier.telegramSendMessage("""
+                Payment requires a refund:
+                - payment id: %s
+                - booking id: %s
+                - booking status: %s
+                - amount: %s $
+                """.formatted(payment.getId(), booking.getId(), booking.getStatus(),
+                payment.getAmountToPay()));
+    }
+}
@@ -0,0 +1,202 @@
+package accommodation.booking.app.service.impl;
+
+import accommodation.booking.app.exception.PaymentException;
+import accommodation.booking.app.exception.WebhookSignatureException;
+import accommodation.booking.app.model.Payment;
+import accommodation.booking.app.model.StripeEvent;
+import accommodation.booking.app.repository.PaymentRepository;
+import accommodation.booking.app.repository.StripeEventRepository;
+import accommodation.booking.app.service.StripeWebhookService;
+import com.stripe.exception.EventDataObjectDeserializationException;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.Webhook;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+@Slf4j
+public class StripeWebhookServiceImpl implements StripeWebhookService {
+    static final String SESSION_COMPLETED = "checkout.session.completed";
+    static final String ASYNC_PAYMENT_SUCCEEDED = "checkout.session.async_payment_succeeded";
+    static final String SESSION_EXPIRED = "checkout.session.expired";
+    static final String ASYNC_PAYMENT_FAILED = "checkout.session.async_payment_failed";
+    private static final Set<String> HANDLED_TYPES = Set.of(SESSION_COMPLETED,
+            ASYNC_PAYMENT_SUCCEEDED, SESSION_EXPIRED, ASYNC_PAYMENT_FAILED);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StripeEventRepository stripeEventRepository;
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusUpdater paymentStatusUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final String webhookSecret;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration unmatchedTtl;
+
+    public StripeWebhookServiceImpl(StripeEventRepository stripeEventRepository,
+                                    PaymentRepository paymentRepository,
+                                    PaymentStatusUpdater paymentStatusUpdater,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${stripe.webhook.secret:}") String webhookSecret,
+                                    @Value("${stripe.webhook.batch-size:100}") int batchSize,
+                                    @Value("${stripe.webhook.max-attempts:10}") int maxAttempts,
+                                    @Value("${stripe.webhook.retry-delay:PT1M}")
+                                    Duration retryDelay,
+                                    @Value("${stripe.webhook.unmatched-ttl:PT1H}")
+                                    Duration unmatchedTtl) {
+        this.stripeEventRepository = stripeEventRepository;
+        this.paymentRepository = paymentRepository;
+        this.paymentStatusUpdater = paymentStatusUpdater;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.webhookSecret = webhookSecret;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.unmatchedTtl = unmatchedTtl;
+    }
+
+    @Override
+    public void receive(String payload, String signatureHeader) {
+        Event event = verify(payload, signatureHeader);
+        if (!HANDLED_TYPES.contains(event.getType())) {
+            log.debug("Ignoring Stripe event {} of type {}", event.getId(), event.getType());
+            return;
+        }
+        Session session = session(event);
+        if (stripeEventRepository.insertIfAbsent(event.getId(), event.getType(), session.getId(),
+                session.getPaymentStatus()) == 0) {
+            log.debug("Stripe event {} was already received", event.getId());
+        }
+    }
+
+    /**
+     * Claims a batch of pending events and applies each one in its own transaction. A claimed
+     * event that is not marked processed becomes pending again once {@code retryDelay} passes,
+     * so an event that fails, or whose session is not saved yet, is retried without holding
+     * back the rest of the batch.
+     */
+    @Override
+    public int applyPendingEvents() {
+        List<StripeEvent> events = transactionTemplate.execute(status -> claim());
+        for (StripeEvent event : events) {
+            try {
+                if (!Boolean.TRUE.equals(transactionTemplate.execute(status ->
+                        applyEvent(event)))) {
+                    deferUnmatched(event);
+                }
+            } catch (RuntimeException e) {
+                recordFailure(event, e);
+            }
+        }
+        return events.size();
+    }
+
+    private List<StripeEvent> claim() {
+        List<String> ids = stripeEventRepository.findPendingIds(batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        stripeEventRepository.claim(ids, retryDelay.toMillis());
+        return stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(ids);
+    }
+
+    private boolean applyEvent(StripeEvent event) {
+        Optional<Payment> payment = paymentRepository.findBySessionId(event.getSessionId());
+        if (payment.isEmpty()) {
+            return false;
+        }
+        apply(event, payment.get());
+        stripeEventRepository.markProcessed(List.of(event.getEventId()));
+        return true;
+    }
+
+    private void deferUnmatched(StripeEvent event) {
+        if (event.getReceivedAt().isAfter(LocalDateTime.now().minus(unmatchedTtl))) {
+            log.debug("Stripe event {} refers to session {} that is not saved yet, "
+                    + "retrying after {}", event.getEventId(), event.getSessionId(), retryDelay);
+            return;
+        }
+        log.error("Stripe event {} refers to unknown session {} for longer than {}, "
+                + "giving up", event.getEventId(), event.getSessionId(), unmatchedTtl);
+        transactionTemplate.executeWithoutResult(status -> stripeEventRepository.markFailed(
+                event.getEventId(), event.getAttempts(), "Unknown session"));
+    }
+
+    private void recordFailure(StripeEvent event, RuntimeException e) {
+        int attempts = event.getAttempts() + 1;
+        String error = errorOf(e);
+        if (attempts >= maxAttempts) {
+            log.error("Stripe event {} failed {} times, giving up", event.getEventId(),
+                    attempts, e);
+            transactionTemplate.executeWithoutResult(status -> stripeEventRepository.markFailed(
+                    event.getEventId(), attempts, error));
+            return;
+        }
+        log.warn("Stripe event {} failed (attempt {} of {}), retrying after {}",
+                event.getEventId(), attempts, maxAttempts, retryDelay, e);
+        transactionTemplate.executeWithoutResult(status -> stripeEventRepository.recordFailure(
+                event.getEventId(), attempts, error));
+    }
+
+    private static String errorOf(RuntimeException e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private void apply(StripeEvent event, Payment payment) {
+        switch (event.getType()) {
+            case SESSION_COMPLETED -> {
+                if ("paid".equalsIgnoreCase(event.getPaymentStatus())) {
+                    paymentStatusUpdater.confirm(payment);
+                }
+            }
+            case ASYNC_PAYMENT_SUCCEEDED -> paymentStatusUpdater.confirm(payment);
+            case SESSION_EXPIRED, ASYNC_PAYMENT_FAILED -> paymentStatusUpdater.cancel(payment);
+            default -> log.debug("No handler for Stripe event type {}", event.getType());
+        }
+    }
+
+    private Event verify(String payload, String signatureHeader) {
+        if (webhookSecret == null || webhookSecret.isBlank()) {
+            throw new IllegalStateException("Stripe webhook secret is not configured");
+        }
+        if (signatureHeader == null || signatureHeader.isBlank()) {
+            throw new WebhookSignatureException("Missing Stripe-Signature header", null);
+        }
+        try {
+            return Webhook.constructEvent(payload, signatureHeader, webhookSecret);
+        } catch (SignatureVerificationException e) {
+            throw new WebhookSignatureException("Invalid Stripe webhook signature", e);
+        }
+    }
+
+    private Session session(Event event) {
+        EventDataObjectDeserializer deserializer = event.getDataObjectDeserializer();
+        try {
+            StripeObject object = deserializer.getObject().isPresent()
+                    ? deserializer.getObject().get()
+                    : deserializer.deserializeUnsafe();
+            if (object instanceof Session session) {
+                return session;
+            }
+        } catch (EventDataObjectDeserializationException e) {
+            throw new PaymentException("Cannot read Stripe event " + event.getId() + ": "
+                    + e.getMessage());
+        }
+        throw new PaymentException("Stripe event " + event.getId()
+                + " does not contain a Checkout session");
+    }
+}
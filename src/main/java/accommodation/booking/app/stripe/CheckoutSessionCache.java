@@ -0,0 +1,51 @@
+package accommodation.booking.app.stripe;
+
+import accommodation.booking.app.dto.payment.PaymentDto;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CheckoutSessionCache {
+    private final Map<Long, OpenSession> sessions = new ConcurrentHashMap<>();
+
+    public Optional<PaymentDto> get(Long bookingId, Duration minRemaining) {
+        OpenSession session = sessions.get(bookingId);
+        if (session == null) {
+            return Optional.empty();
+        }
+        if (!session.isOpenAt(LocalDateTime.now().plus(minRemaining))) {
+            sessions.remove(bookingId, session);
+            return Optional.empty();
+        }
+        return Optional.of(session.payment());
+    }
+
+    public void put(Long bookingId, PaymentDto payment, LocalDateTime expiresAt) {
+        sessions.put(bookingId, new OpenSession(payment, expiresAt));
+    }
+
+    public void evict(Long bookingId) {
+        sessions.remove(bookingId);
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.session.cache-purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        sessions.values().removeIf(session -> !session.isOpenAt(now));
+    }
+
+    private record OpenSession(PaymentDto payment, LocalDateTime expiresAt) {
+        boolean isOpenAt(LocalDateTime time) {
+            return expiresAt != null && expiresAt.isAfter(time);
+        }
+    }
+}
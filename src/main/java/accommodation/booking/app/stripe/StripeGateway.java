@@ -0,0 +1,145 @@
+package accommodation.booking.app.stripe;
+
+import accommodation.booking.app.exception.PaymentGatewayException;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class StripeGateway {
+    private final StripeClient stripeClient;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor bulkhead;
+    private final Duration callTimeout;
+
+    public StripeGateway(StripeClient stripeClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${stripe.client.bulkhead-size:10}") int bulkheadSize,
+                         @Value("${stripe.client.bulkhead-queue:20}") int bulkheadQueue,
+                         @Value("${stripe.client.call-timeout:PT10S}") Duration callTimeout,
+                         @Value("${stripe.circuit-breaker.failure-threshold:5}")
+                         int failureThreshold,
+                         @Value("${stripe.circuit-breaker.open-duration:PT30S}")
+                         Duration openDuration) {
+        this.stripeClient = stripeClient;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        this.bulkhead = new ThreadPoolExecutor(bulkheadSize, bulkheadSize, 0L,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(bulkheadQueue),
+                Thread.ofPlatform().name("stripe-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.callTimeout = callTimeout;
+        Gauge.builder("stripe.bulkhead.active", bulkhead, ThreadPoolExecutor::getActiveCount)
+                .description("Stripe calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("stripe.circuit.open", circuitBreaker,
+                        breaker -> breaker.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("Whether calls to Stripe are currently short-circuited")
+                .register(meterRegistry);
+    }
+
+    public Session createSession(SessionCreateParams params) {
+        return call("session.create",
+                () -> stripeClient.v1().checkout().sessions().create(params));
+    }
+
+    public Session retrieveSession(String sessionId) {
+        return call("session.retrieve",
+                () -> stripeClient.v1().checkout().sessions().retrieve(sessionId));
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+
+    private <T> T call(String operation, Callable<T> stripeCall) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            reject(operation, "circuit_open");
+            throw new PaymentGatewayException("Stripe is unavailable, " + operation
+                    + " was not attempted", null);
+        }
+        Future<T> future;
+        try {
+            future = bulkhead.submit(stripeCall);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.releasePermission();
+            reject(operation, "bulkhead_full");
+            throw new PaymentGatewayException("Too many concurrent Stripe calls, " + operation
+                    + " was not attempted", e);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = future.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            outcome = "success";
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            outcome = "timeout";
+            throw new PaymentGatewayException("Stripe " + operation + " timed out after "
+                    + callTimeout, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isUnavailable(cause)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            throw new PaymentGatewayException("Stripe " + operation + " failed: "
+                    + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            circuitBreaker.releasePermission();
+            throw new PaymentGatewayException("Interrupted while waiting for Stripe "
+                    + operation, e);
+        } finally {
+            sample.stop(meterRegistry.timer("stripe.call", "operation", operation,
+                    "outcome", outcome));
+        }
+    }
+
+    private void reject(String operation, String reason) {
+        log.warn("Rejected Stripe {} call: {}", operation, reason);
+        meterRegistry.counter("stripe.call.rejected", "operation", operation,
+                "reason", reason).increment();
+    }
+
+    private boolean isUnavailable(Throwable cause) {
+        if (cause instanceof ApiConnectionException) {
+            return true;
+        }
+        if (cause instanceof StripeException stripeException) {
+            Integer statusCode = stripeException.getStatusCode();
+            return statusCode == null || statusCode >= 500 || statusCode == 429;
+        }
+        return true;
+    }
+}
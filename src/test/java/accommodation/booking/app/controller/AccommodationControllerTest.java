@@ -1,7 +1,9 @@
 package accommodation.booking.app.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
@@ -10,12 +12,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchResultDto;
 import accommodation.booking.app.dto.accommodation.AccommodationUpdateRequestDto;
+import accommodation.booking.app.dto.accommodation.AvailabilityDto;
 import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto;
 import accommodation.booking.app.model.Type;
 import accommodation.booking.app.notification.telegram.NotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +53,50 @@ class AccommodationControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void searchAccommodations_PublicEndpoint_ReturnsMatchesAndFacets() throws Exception {
+        MvcResult result = mockMvc.perform(get("/accommodations/search")
+                        .param("city", "warsaw")
+                        .param("amenityIds", "1", "3"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        AccommodationSearchResultDto actual = objectMapper.readValue(
+                result.getResponse().getContentAsString(), AccommodationSearchResultDto.class);
+
+        assertEquals(1, actual.total());
+        assertEquals(1L, actual.accommodations().get(0).id());
+        assertEquals(1, actual.facets().types().get(Type.APARTMENT));
+    }
+
+    @Test
+    void searchAccommodations_WithLimit_ReturnsPageAndFacetsForAllMatches() throws Exception {
+        MvcResult firstResult = mockMvc.perform(get("/accommodations/search")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        AccommodationSearchResultDto firstPage = objectMapper.readValue(
+                firstResult.getResponse().getContentAsString(),
+                AccommodationSearchResultDto.class);
+        MvcResult secondResult = mockMvc.perform(get("/accommodations/search")
+                        .param("limit", "1")
+                        .param("after", firstPage.nextPageToken()))
+                .andExpect(status().isOk())
+                .andReturn();
+        AccommodationSearchResultDto secondPage = objectMapper.readValue(
+                secondResult.getResponse().getContentAsString(),
+                AccommodationSearchResultDto.class);
+
+        assertEquals(1, firstPage.accommodations().size());
+        assertNotNull(firstPage.nextPageToken());
+        assertEquals(1, secondPage.accommodations().size());
+        assertTrue(secondPage.accommodations().get(0).id()
+                > firstPage.accommodations().get(0).id());
+        assertTrue(firstPage.total() > 1);
+        assertEquals(firstPage.total(), secondPage.total());
+        assertEquals(firstPage.facets(), secondPage.facets());
+    }
+
     @Test
     @WithMockUser(roles = "CUSTOMER")
     void createAccommodation_AsCustomer_ErrorStatus() throws Exception {
@@ -91,6 +140,32 @@ class AccommodationControllerTest {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void getAvailability_BookedDates_ReturnsReservedNights() throws Exception {
+        MvcResult result = mockMvc.perform(get("/accommodations/{id}/availability", 1L)
+                        .param("from", "2027-01-10")
+                        .param("to", "2027-01-12"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        AvailabilityDto actual = objectMapper.readValue(
+                result.getResponse().getContentAsString(), AvailabilityDto.class);
+
+        assertFalse(actual.available());
+        assertEquals(List.of(LocalDate.of(2027, 1, 10), LocalDate.of(2027, 1, 11)),
+                actual.reservedNights());
+    }
+
+    @Test
+    @WithMockUser(roles = "CUSTOMER")
+    void getAvailability_FromAfterTo_ErrorStatus() throws Exception {
+        mockMvc.perform(get("/accommodations/{id}/availability", 1L)
+                        .param("from", "2027-01-12")
+                        .param("to", "2027-01-10"))
+                .andExpect(status().is5xxServerError());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     @Sql(scripts = "classpath:database/accommodation/restore-updated-accommodation-id2.sql",
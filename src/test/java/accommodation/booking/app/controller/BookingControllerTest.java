@@ -13,8 +13,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import accommodation.booking.app.dto.booking.BookingDto;
 import accommodation.booking.app.dto.booking.BookingUpdateRequestDto;
 import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
 import accommodation.booking.app.exception.BookingException;
 import accommodation.booking.app.notification.telegram.NotificationService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDate;
 import java.util.List;
@@ -56,7 +58,7 @@ public class BookingControllerTest {
 
         String jsonRequest = objectMapper.writeValueAsString(request);
 
-        BookingDto expected = new BookingDto(4L,
+        BookingDto expected = new BookingDto(null,
                 LocalDate.of(2036, 2, 20),
                 LocalDate.of(2036, 2, 21),
                 1L, 3L, "PENDING");
@@ -74,7 +76,7 @@ public class BookingControllerTest {
 
         assertNotNull(actual);
         assertNotNull(actual.id());
-        assertEquals(expected.id(), actual.id());
+        assertTrue(actual.id() > 3);
         assertEquals(expected.checkInDate(), actual.checkInDate());
         assertEquals(expected.accommodationId(), actual.accommodationId());
         assertEquals(expected.status(), actual.status());
@@ -121,8 +123,9 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        BookingDto[] actual = objectMapper.readValue(
-                result.getResponse().getContentAsString(), BookingDto[].class);
+        CursorPageDto<BookingDto> page = objectMapper.readValue(
+                result.getResponse().getContentAsString(), new TypeReference<>() {});
+        BookingDto[] actual = page.content().toArray(BookingDto[]::new);
 
         assertNotNull(actual);
         assertTrue(actual.length >= 1);
@@ -141,8 +144,9 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andReturn();
 
-        BookingDto[] actual = objectMapper.readValue(
-                result.getResponse().getContentAsString(), BookingDto[].class);
+        CursorPageDto<BookingDto> page = objectMapper.readValue(
+                result.getResponse().getContentAsString(), new TypeReference<>() {});
+        BookingDto[] actual = page.content().toArray(BookingDto[]::new);
 
         assertNotNull(actual);
         assertTrue(actual.length >= 1);
@@ -150,6 +154,29 @@ public class BookingControllerTest {
         assertEquals(userId, actual[0].userId());
     }
 
+    @Test
+    @WithMockUser(username = "jane@google.pl", roles = "CUSTOMER")
+    void getUserBookings_WithLimit_ReturnsNextPageToken() throws Exception {
+        MvcResult firstResult = mockMvc.perform(get("/bookings/my").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+        CursorPageDto<BookingDto> firstPage = objectMapper.readValue(
+                firstResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        MvcResult secondResult = mockMvc.perform(get("/bookings/my")
+                        .param("limit", "1")
+                        .param("after", firstPage.nextPageToken()))
+                .andExpect(status().isOk())
+                .andReturn();
+        CursorPageDto<BookingDto> secondPage = objectMapper.readValue(
+                secondResult.getResponse().getContentAsString(), new TypeReference<>() {});
+
+        assertEquals(1, firstPage.content().size());
+        assertNotNull(firstPage.nextPageToken());
+        assertEquals(1, secondPage.content().size());
+        assertTrue(secondPage.content().get(0).id() > firstPage.content().get(0).id());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getBooking_ByAdmin_Success() throws Exception {
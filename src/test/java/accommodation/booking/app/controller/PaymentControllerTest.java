@@ -1,6 +1,8 @@
 package accommodation.booking.app.controller;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -8,10 +10,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.dto.payment.CreatePaymentRequestDto;
 import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.dto.payment.PaymentResponseDto;
 import accommodation.booking.app.service.PaymentService;
+import accommodation.booking.app.service.StripeWebhookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.util.List;
@@ -37,6 +42,9 @@ class PaymentControllerTest {
     @MockitoBean
     private PaymentService paymentService;
 
+    @MockitoBean
+    private StripeWebhookService stripeWebhookService;
+
     @Test
     @WithMockUser(username = "james@google.com", roles = "CUSTOMER")
     void getPayments_AsCustomer_Success() throws Exception {
@@ -46,15 +54,16 @@ class PaymentControllerTest {
                 10L, 1L, "PENDING", BigDecimal.valueOf(20), "sess_1", "http://test.com"
         );
 
-        when(paymentService.getAllPaymentsByUserId(eq(userId), eq("james@google.com")))
-                .thenReturn(List.of(dto));
+        when(paymentService.getAllPaymentsByUserId(eq(userId), eq("james@google.com"),
+                any(CursorPageRequestDto.class)))
+                .thenReturn(new CursorPageDto<>(List.of(dto), null));
 
         mockMvc.perform(get("/payments").param("user_id", userId.toString()))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].id").value(10L))
-                .andExpect(jsonPath("$[0].status").value("PENDING"));
+                .andExpect(jsonPath("$.content").isArray())
+                .andExpect(jsonPath("$.content[0].id").value(10L))
+                .andExpect(jsonPath("$.content[0].status").value("PENDING"));
     }
 
     @Test
@@ -106,4 +115,17 @@ class PaymentControllerTest {
                 .andExpect(jsonPath("$.paymentId").value(2L))
                 .andExpect(jsonPath("$.status").value("CANCELED"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void stripeWebhook_PublicEndpoint_AcknowledgesEvent() throws Exception {
+        String payload = "{\"id\": \"evt_1\"}";
+
+        mockMvc.perform(post("/payments/webhook")
+                        .header("Stripe-Signature", "t=1,v1=abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andExpect(status().isOk());
+
+        verify(stripeWebhookService).receive(payload, "t=1,v1=abc");
+    }
+}
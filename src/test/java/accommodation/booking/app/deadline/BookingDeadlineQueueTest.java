@@ -0,0 +1,110 @@
+package accommodation.booking.app.deadline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class BookingDeadlineQueueTest {
+    private static final Duration HOLD_TIMEOUT = Duration.ofMinutes(30);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingDeadlineQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new BookingDeadlineQueue(bookingRepository, new SimpleMeterRegistry(),
+                HOLD_TIMEOUT);
+    }
+
+    @Test
+    void schedule_PendingBooking_AddsCheckOutAndHoldDeadlines() throws InterruptedException {
+        Booking booking = booking(1L, Status.PENDING, LocalDate.now().minusDays(1))
+                .setCreatedAt(LocalDateTime.now().minusHours(1));
+
+        queue.schedule(booking);
+
+        assertEquals(2, queue.size());
+        BookingDeadline first = queue.take();
+        BookingDeadline second = queue.take();
+        assertEquals(BookingDeadline.Type.CHECK_OUT, first.type());
+        assertEquals(BookingDeadline.Type.UNPAID_HOLD, second.type());
+        assertEquals(1L, second.bookingId());
+    }
+
+    @Test
+    void schedule_CreatedAtAssignedAtFlush_ReadsItAfterCommit() {
+        Booking booking = booking(1L, Status.PENDING, LocalDate.now().plusDays(3));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            queue.schedule(booking);
+            booking.setCreatedAt(LocalDateTime.now().minusHours(1));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void schedule_PendingBookingWithoutCreatedAt_StillAddsHoldDeadline() {
+        queue.schedule(booking(1L, Status.PENDING, LocalDate.now().plusDays(3)));
+
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void schedule_CanceledBooking_AddsNoDeadline() {
+        queue.schedule(booking(1L, Status.CANCELED, LocalDate.now().plusDays(3)));
+
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void rehydrate_LoadsActiveBookingsFromDatabase() throws InterruptedException {
+        when(bookingRepository.findScheduledBookings(EnumSet.of(Status.PENDING,
+                Status.CONFIRMED))).thenReturn(List.of(
+                        new ScheduledBooking(2L, Status.CONFIRMED, LocalDate.now().plusDays(5),
+                                null),
+                        new ScheduledBooking(3L, Status.PENDING, LocalDate.now().plusDays(5),
+                                LocalDateTime.now().minus(HOLD_TIMEOUT))));
+
+        int actual = queue.rehydrate();
+
+        assertEquals(2, actual);
+        assertEquals(3, queue.size());
+        BookingDeadline due = queue.take();
+        assertEquals(3L, due.bookingId());
+        assertEquals(BookingDeadline.Type.UNPAID_HOLD, due.type());
+    }
+
+    private Booking booking(Long id, Status status, LocalDate checkOutDate) {
+        return new Booking()
+                .setId(id)
+                .setStatus(status)
+                .setCheckInDate(checkOutDate.minusDays(2))
+                .setCheckOutDate(checkOutDate)
+                .setAccommodation(new Accommodation().setId(10L));
+    }
+}
@@ -0,0 +1,47 @@
+package accommodation.booking.app.deadline;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+@ExtendWith(MockitoExtension.class)
+class BookingDeadlineWorkerTest {
+    @Mock
+    private BookingDeadlineQueue bookingDeadlineQueue;
+    @Mock
+    private BookingExpirationProcessor bookingExpirationProcessor;
+    @InjectMocks
+    private BookingDeadlineWorker worker;
+
+    @Test
+    void process_CheckOutDeadline_ExpiresBooking() {
+        worker.process(new BookingDeadline(1L, BookingDeadline.Type.CHECK_OUT, Instant.now()));
+
+        verify(bookingExpirationProcessor).expireCheckedOut(1L, LocalDate.now());
+    }
+
+    @Test
+    void process_DatabaseFailure_RetriesDeadlineLater() {
+        BookingDeadline deadline = new BookingDeadline(2L, BookingDeadline.Type.UNPAID_HOLD,
+                Instant.now());
+        when(bookingDeadlineQueue.holdTimeout()).thenReturn(Duration.ofMinutes(30));
+        when(bookingExpirationProcessor.expireUnpaidHold(eq(2L), any()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        worker.process(deadline);
+
+        verify(bookingDeadlineQueue).retry(eq(deadline), any(Duration.class));
+    }
+}
@@ -0,0 +1,139 @@
+package accommodation.booking.app.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.dto.accommodation.AccommodationFacetsDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Amenity;
+import accommodation.booking.app.model.Location;
+import accommodation.booking.app.model.Type;
+import accommodation.booking.app.repository.AccommodationRepository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AccommodationSearchIndexTest {
+
+    @InjectMocks
+    private AccommodationSearchIndex index;
+
+    @Mock
+    private AccommodationRepository accommodationRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void setUp() {
+        when(accommodationRepository.findAccommodationAttributes()).thenReturn(List.of(
+                new AccommodationAttributes(1L, Type.APARTMENT, "Warsaw", "Poland",
+                        BigDecimal.valueOf(10), 1),
+                new AccommodationAttributes(2L, Type.CONDO, "NY", "USA",
+                        BigDecimal.valueOf(20), 1),
+                new AccommodationAttributes(3L, Type.APARTMENT, "Warsaw", "Poland",
+                        BigDecimal.valueOf(30), 0)));
+        when(accommodationRepository.findAmenityAssignments()).thenReturn(List.of(
+                new AmenityAssignment(1L, 1L),
+                new AmenityAssignment(1L, 3L),
+                new AmenityAssignment(2L, 1L),
+                new AmenityAssignment(3L, 3L)));
+        index.rebuild();
+    }
+
+    @Test
+    void search_CombinedFilters_ReturnsIntersection() {
+        assertEquals(bits(1, 3), index.search(parameters(Type.APARTMENT, "warsaw", null,
+                null, null, null)));
+        assertEquals(bits(1), index.search(parameters(null, null, List.of(1L, 3L),
+                null, null, null)));
+        assertEquals(bits(2, 3), index.search(parameters(null, null, null,
+                BigDecimal.valueOf(15), BigDecimal.valueOf(30), null)));
+        assertEquals(bits(1, 2), index.search(parameters(null, null, null,
+                null, null, true)));
+    }
+
+    @Test
+    void search_ReservedDates_ExcludesBookedAccommodations() {
+        LocalDate checkIn = LocalDate.now().plusDays(1);
+        LocalDate checkOut = checkIn.plusDays(2);
+        when(bookingIntervalIndex.isReserved(1L, checkIn, checkOut)).thenReturn(true);
+        when(bookingIntervalIndex.isReserved(3L, checkIn, checkOut)).thenReturn(false);
+
+        BitSet actual = index.search(new AccommodationSearchParametersDto(Type.APARTMENT,
+                null, null, null, null, null, null, checkIn, checkOut));
+
+        assertEquals(bits(3), actual);
+    }
+
+    @Test
+    void refresh_ChangedOnAnotherNode_ReloadsFromDatabase() {
+        when(accommodationRepository.findAccommodationAttributes()).thenReturn(List.of(
+                new AccommodationAttributes(1L, Type.CONDO, "Warsaw", "Poland",
+                        BigDecimal.valueOf(10), 1),
+                new AccommodationAttributes(4L, Type.APARTMENT, "Krakow", "Poland",
+                        BigDecimal.valueOf(40), 1)));
+        when(accommodationRepository.findAmenityAssignments()).thenReturn(List.of());
+
+        index.refresh();
+
+        assertEquals(bits(4), index.search(parameters(Type.APARTMENT, null, null,
+                null, null, null)));
+        assertEquals(bits(1), index.search(parameters(Type.CONDO, null, null,
+                null, null, null)));
+    }
+
+    @Test
+    void register_UpdatedAccommodation_MovesBetweenBitmaps() {
+        index.register(new Accommodation()
+                .setId(2L)
+                .setType(Type.HOUSE)
+                .setLocation(new Location().setCity("Oslo").setCountry("Norway"))
+                .setAmenities(Set.of(new Amenity().setId(3L)))
+                .setDailyRate(BigDecimal.valueOf(20))
+                .setAvailability(1));
+
+        assertEquals(bits(), index.search(parameters(Type.CONDO, null, null, null, null, null)));
+        assertEquals(bits(1, 2, 3), index.search(parameters(null, null, List.of(3L),
+                null, null, null)));
+    }
+
+    @Test
+    void facets_CountsOnlyMatches() {
+        index.remove(2L);
+        BitSet matches = index.search(parameters(null, null, null, null, null, null));
+
+        AccommodationFacetsDto actual = index.facets(matches);
+
+        assertEquals(Map.of(Type.APARTMENT, 2), actual.types());
+        assertEquals(Map.of("Warsaw", 2), actual.cities());
+        assertEquals(Map.of(1L, 1, 3L, 2), actual.amenities());
+    }
+
+    private AccommodationSearchParametersDto parameters(Type type, String city,
+                                                        List<Long> amenityIds,
+                                                        BigDecimal minDailyRate,
+                                                        BigDecimal maxDailyRate,
+                                                        Boolean available) {
+        return new AccommodationSearchParametersDto(type, city, null, amenityIds,
+                minDailyRate, maxDailyRate, available, null, null);
+    }
+
+    private BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,76 @@
+package accommodation.booking.app.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityCalendarTest {
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @InjectMocks
+    private AvailabilityCalendar calendar;
+
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(calendar, "horizonDays", 30);
+    }
+
+    @Test
+    void reservedNights_ReturnsBitsRelativeToFrom() {
+        when(bookingIntervalIndex.version(5L)).thenReturn(1L);
+        when(bookingIntervalIndex.intervals(5L)).thenReturn(List.of(
+                new BookingInterval(1L, 5L, TODAY.plusDays(3), TODAY.plusDays(5))));
+
+        BitSet actual = calendar.reservedNights(5L, TODAY.plusDays(2), TODAY.plusDays(6));
+
+        assertEquals(2, actual.cardinality());
+        assertTrue(actual.get(1));
+        assertTrue(actual.get(2));
+        assertFalse(calendar.isAvailable(5L, TODAY.plusDays(4), TODAY.plusDays(8)));
+        assertTrue(calendar.isAvailable(5L, TODAY.plusDays(5), TODAY.plusDays(8)));
+        verify(bookingIntervalIndex, times(1)).intervals(5L);
+    }
+
+    @Test
+    void reservedNights_IndexChanged_RebuildsCalendar() {
+        when(bookingIntervalIndex.version(5L)).thenReturn(1L, 2L);
+        when(bookingIntervalIndex.intervals(5L)).thenReturn(List.of(
+                        new BookingInterval(1L, 5L, TODAY.minusDays(3), TODAY.plusDays(2))),
+                List.of());
+
+        assertFalse(calendar.isAvailable(5L, TODAY, TODAY.plusDays(1)));
+        assertTrue(calendar.isAvailable(5L, TODAY, TODAY.plusDays(1)));
+    }
+
+    @Test
+    void reservedNights_FromBeforeToday_BuildsCalendarFromFrom() {
+        when(bookingIntervalIndex.version(5L)).thenReturn(1L);
+        when(bookingIntervalIndex.intervals(5L)).thenReturn(List.of(
+                new BookingInterval(1L, 5L, TODAY.minusDays(1), TODAY.plusDays(1))));
+
+        BitSet actual = calendar.reservedNights(5L, TODAY.minusDays(1), TODAY.plusDays(2));
+
+        assertEquals(2, actual.cardinality());
+        assertTrue(actual.get(0));
+        assertTrue(actual.get(1));
+        assertFalse(actual.get(2));
+    }
+}
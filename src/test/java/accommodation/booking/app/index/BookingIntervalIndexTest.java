@@ -0,0 +1,104 @@
+package accommodation.booking.app.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class BookingIntervalIndexTest {
+    private static final LocalDate CHECK_IN = LocalDate.now().plusDays(10);
+    private static final LocalDate CHECK_OUT = LocalDate.now().plusDays(15);
+
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Test
+    void isReserved_OverlappingDates_ReturnsTrue() {
+        when(bookingRepository.findReservedIntervals(any(LocalDate.class),
+                eq(BookingIntervalIndex.NON_RESERVED_STATUSES)))
+                .thenReturn(List.of(new BookingInterval(1L, 5L, CHECK_IN, CHECK_OUT)));
+        index.rebuild();
+
+        assertTrue(index.isReserved(5L, CHECK_IN.minusDays(2), CHECK_IN.plusDays(1)));
+        assertTrue(index.isReserved(5L, CHECK_IN.plusDays(1), CHECK_IN.plusDays(2)));
+        assertTrue(index.isReserved(5L, CHECK_OUT.minusDays(1), CHECK_OUT.plusDays(3)));
+    }
+
+    @Test
+    void isReserved_AdjacentOrOtherAccommodation_ReturnsFalse() {
+        when(bookingRepository.findReservedIntervals(any(LocalDate.class),
+                eq(BookingIntervalIndex.NON_RESERVED_STATUSES)))
+                .thenReturn(List.of(new BookingInterval(1L, 5L, CHECK_IN, CHECK_OUT)));
+        index.rebuild();
+
+        assertFalse(index.isReserved(5L, CHECK_IN.minusDays(3), CHECK_IN));
+        assertFalse(index.isReserved(5L, CHECK_OUT, CHECK_OUT.plusDays(3)));
+        assertFalse(index.isReserved(6L, CHECK_IN, CHECK_OUT));
+    }
+
+    @Test
+    void register_CanceledBooking_ReleasesDates() {
+        Booking booking = new Booking()
+                .setId(1L)
+                .setAccommodation(new Accommodation().setId(5L))
+                .setCheckInDate(CHECK_IN)
+                .setCheckOutDate(CHECK_OUT)
+                .setStatus(Status.PENDING);
+
+        index.register(booking);
+        assertTrue(index.isReserved(5L, CHECK_IN, CHECK_OUT));
+
+        index.register(booking.setStatus(Status.CANCELED));
+        assertFalse(index.isReserved(5L, CHECK_IN, CHECK_OUT));
+    }
+
+    @Test
+    void register_MovedDates_ReplacesPreviousInterval() {
+        Booking booking = new Booking()
+                .setId(1L)
+                .setAccommodation(new Accommodation().setId(5L))
+                .setCheckInDate(CHECK_IN)
+                .setCheckOutDate(CHECK_OUT)
+                .setStatus(Status.CONFIRMED);
+        index.register(booking);
+
+        index.register(booking.setCheckInDate(CHECK_OUT.plusDays(5))
+                .setCheckOutDate(CHECK_OUT.plusDays(7)));
+
+        assertFalse(index.isReserved(5L, CHECK_IN, CHECK_OUT));
+        assertTrue(index.isReserved(5L, CHECK_OUT.plusDays(6), CHECK_OUT.plusDays(8)));
+    }
+
+    @Test
+    void verifyConsistency_StaleEntry_RepairsAccommodation() {
+        BookingInterval interval = new BookingInterval(1L, 5L, CHECK_IN, CHECK_OUT);
+        when(bookingRepository.findReservedIntervals(any(LocalDate.class),
+                eq(BookingIntervalIndex.NON_RESERVED_STATUSES)))
+                .thenReturn(List.of(interval));
+        when(bookingRepository.findReservedIntervalsByAccommodationId(eq(5L),
+                any(LocalDate.class), eq(BookingIntervalIndex.NON_RESERVED_STATUSES)))
+                .thenReturn(List.of(interval));
+
+        assertEquals(1, index.verifyConsistency());
+        assertTrue(index.isReserved(5L, CHECK_IN, CHECK_OUT));
+        assertEquals(0, index.verifyConsistency());
+    }
+}
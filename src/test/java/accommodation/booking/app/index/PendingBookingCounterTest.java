@@ -0,0 +1,106 @@
+package accommodation.booking.app.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class PendingBookingCounterTest {
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void count_Disabled_ProbesDatabaseEveryTime() {
+        PendingBookingCounter counter = counter(false, Duration.ofMinutes(5));
+        when(bookingRepository.countByUserIdAndStatus(2L, Status.PENDING)).thenReturn(1L);
+
+        assertEquals(1, counter.count(2L));
+        assertEquals(1, counter.count(2L));
+
+        verify(bookingRepository, times(2)).countByUserIdAndStatus(2L, Status.PENDING);
+        assertEquals(0, counter.size());
+    }
+
+    @Test
+    void count_Enabled_ServesRepeatedGateFromMemory() {
+        PendingBookingCounter counter = counter(true, Duration.ofMinutes(5));
+        when(bookingRepository.countByUserIdAndStatus(2L, Status.PENDING)).thenReturn(1L);
+
+        assertEquals(1, counter.count(2L));
+        assertEquals(1, counter.count(2L));
+        assertEquals(1, counter.count(2L));
+
+        verify(bookingRepository, times(1)).countByUserIdAndStatus(2L, Status.PENDING);
+        assertEquals(2, meterRegistry.get("booking.pending.counter.hits").counter().count());
+    }
+
+    @Test
+    void count_EntryExpired_ReloadsFromDatabase() {
+        PendingBookingCounter counter = counter(true, Duration.ZERO);
+        when(bookingRepository.countByUserIdAndStatus(2L, Status.PENDING)).thenReturn(0L);
+
+        counter.count(2L);
+        counter.count(2L);
+
+        verify(bookingRepository, times(2)).countByUserIdAndStatus(2L, Status.PENDING);
+    }
+
+    @Test
+    void invalidate_StatusChanged_NextGateReloadsCount() {
+        PendingBookingCounter counter = counter(true, Duration.ofMinutes(5));
+        when(bookingRepository.countByUserIdAndStatus(2L, Status.PENDING))
+                .thenReturn(1L, 0L);
+
+        assertEquals(1, counter.count(2L));
+        counter.invalidate(2L);
+
+        assertEquals(0, counter.count(2L));
+        verify(bookingRepository, times(2)).countByUserIdAndStatus(2L, Status.PENDING);
+    }
+
+    @Test
+    void invalidate_InsideTransaction_EvictsAgainAfterCommit() {
+        PendingBookingCounter counter = counter(true, Duration.ofMinutes(5));
+        when(bookingRepository.countByUserIdAndStatus(2L, Status.PENDING))
+                .thenReturn(0L, 1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counter.invalidate(2L);
+            counter.count(2L);
+            assertEquals(1, counter.size());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0, counter.size());
+        assertEquals(1, counter.count(2L));
+    }
+
+    private PendingBookingCounter counter(boolean enabled, Duration ttl) {
+        return new PendingBookingCounter(bookingRepository, meterRegistry, enabled, ttl);
+    }
+}
@@ -0,0 +1,53 @@
+package accommodation.booking.app.lock;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LeaseServiceTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Mock
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+    @Mock
+    private NodeIdentity nodeIdentity;
+
+    private LeaseService leaseService;
+
+    @BeforeEach
+    void setUp() {
+        when(nodeIdentity.id()).thenReturn("node-a");
+        leaseService = new LeaseService(schedulerLeaseRepository, nodeIdentity,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void releaseAll_ReleasesOnlyLeasesStillHeld() {
+        when(schedulerLeaseRepository.acquire("job-0", "node-a", TTL.toMillis())).thenReturn(1);
+        when(schedulerLeaseRepository.acquire("job-1", "node-a", TTL.toMillis())).thenReturn(1);
+        when(schedulerLeaseRepository.acquire("job-2", "node-a", TTL.toMillis())).thenReturn(0);
+        when(schedulerLeaseRepository.renew("job-1", "node-a", TTL.toMillis())).thenReturn(0);
+
+        assertTrue(leaseService.tryAcquire("job-0", TTL));
+        assertTrue(leaseService.tryAcquire("job-1", TTL));
+        assertFalse(leaseService.tryAcquire("job-2", TTL));
+        assertFalse(leaseService.renew("job-1", TTL));
+        leaseService.releaseAll();
+
+        verify(schedulerLeaseRepository).release("job-0", "node-a");
+        verify(schedulerLeaseRepository, never()).release("job-1", "node-a");
+        verify(schedulerLeaseRepository, never()).release("job-2", "node-a");
+    }
+}
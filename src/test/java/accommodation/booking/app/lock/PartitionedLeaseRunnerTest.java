@@ -0,0 +1,50 @@
+package accommodation.booking.app.lock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class PartitionedLeaseRunnerTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    @Mock
+    private LeaseService leaseService;
+    @Mock
+    private NodeIdentity nodeIdentity;
+    @InjectMocks
+    private PartitionedLeaseRunner runner;
+
+    @Test
+    void run_RunsOnlyPartitionsWithAcquiredLease() {
+        when(nodeIdentity.id()).thenReturn("node-a");
+        int offset = Math.floorMod("node-a".hashCode(), 3);
+        for (int partition = 0; partition < 3; partition++) {
+            when(leaseService.tryAcquire("job-" + partition, TTL)).thenReturn(partition != 1);
+        }
+        when(leaseService.renew("job-2", TTL)).thenReturn(true);
+        List<Integer> ran = new ArrayList<>();
+
+        List<Integer> claimed = runner.run("job", 3, TTL, (partition, leaseHeld) -> {
+            ran.add(partition);
+            if (partition == 2) {
+                assertTrue(leaseHeld.getAsBoolean());
+            }
+        });
+
+        assertEquals(ran, claimed);
+        assertEquals(2, claimed.size());
+        assertEquals(offset == 1 ? 2 : offset, claimed.getFirst());
+        verify(leaseService).renew("job-2", TTL);
+    }
+}
@@ -0,0 +1,139 @@
+package accommodation.booking.app.notification;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import accommodation.booking.app.exception.NotificationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class NotificationDispatcherTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+    }
+
+    @Test
+    void submit_BurstBeforeDelivery_IsCoalescedIntoDigest() throws Exception {
+        AtomicInteger acknowledged = new AtomicInteger();
+        dispatcher = dispatcher(delivered::add, 10);
+        dispatcher.submit("first", acknowledged::incrementAndGet);
+        dispatcher.submit("second", acknowledged::incrementAndGet);
+        dispatcher.submit("third", acknowledged::incrementAndGet);
+
+        dispatcher.start();
+
+        await(() -> acknowledged.get() == 3);
+        assertEquals(List.of("first\n\nsecond\n\nthird"), delivered);
+        assertEquals(1, meterRegistry.get("notification.digests").counter().count());
+    }
+
+    @Test
+    void submit_SinkFailsOnce_RetriesDelivery() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        dispatcher = dispatcher(message -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new NotificationException("unavailable", null);
+            }
+            delivered.add(message);
+        }, 10);
+        dispatcher.start();
+
+        dispatcher.submit("booking created", () -> { });
+
+        await(() -> delivered.size() == 1);
+        assertEquals(2, attempts.get());
+        assertEquals(1, meterRegistry.get("notification.retries").counter().count());
+        assertEquals(1, meterRegistry.get("notification.sent").counter().count());
+    }
+
+    @Test
+    void submit_SinkThrowsRuntimeException_WorkerKeepsDelivering() throws Exception {
+        dispatcher = dispatcher(message -> {
+            if (message.contains("broken")) {
+                throw new IllegalStateException("sink bug");
+            }
+            delivered.add(message);
+        }, 10);
+        dispatcher.start();
+
+        dispatcher.submit("broken", () -> { });
+        await(() -> meterRegistry.get("notification.failed").counter().count() == 1);
+        dispatcher.submit("booking created", () -> { });
+
+        await(() -> delivered.size() == 1);
+        assertEquals(List.of("booking created"), delivered);
+        assertEquals(2, meterRegistry.get("notification.retries").counter().count());
+    }
+
+    @Test
+    void submit_DeliveryCallbackThrows_WorkerKeepsDelivering() throws Exception {
+        AtomicInteger acknowledged = new AtomicInteger();
+        dispatcher = dispatcher(delivered::add, 10);
+        dispatcher.start();
+
+        dispatcher.submit("first", () -> {
+            throw new IllegalStateException("callback bug");
+        });
+        await(() -> delivered.size() == 1);
+        dispatcher.submit("second", acknowledged::incrementAndGet);
+
+        await(() -> acknowledged.get() == 1);
+        assertEquals(List.of("first", "second"), delivered);
+        assertEquals(2, meterRegistry.get("notification.sent").counter().count());
+    }
+
+    @Test
+    void submit_QueueFull_DropsMessage() {
+        dispatcher = dispatcher(delivered::add, 1);
+
+        assertTrue(dispatcher.submit("kept", () -> { }));
+        assertFalse(dispatcher.submit("dropped", () -> { }));
+
+        assertEquals(1, meterRegistry.get("notification.dropped").counter().count());
+        assertEquals(1, meterRegistry.get("notification.queue.depth").gauge().value());
+    }
+
+    @Test
+    void coalesce_DigestLongerThanTelegramLimit_IsSplit() {
+        String message = "x".repeat(3000);
+
+        List<NotificationDispatcher.Digest> chunks = NotificationDispatcher.coalesce(List.of(
+                notification(message), notification(message), notification("y".repeat(5000))));
+
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.stream().allMatch(chunk ->
+                chunk.text().length() <= NotificationDispatcher.MAX_MESSAGE_LENGTH));
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.parts().size() == 1));
+    }
+
+    private NotificationDispatcher.Notification notification(String message) {
+        return new NotificationDispatcher.Notification(message, () -> { });
+    }
+
+    private NotificationDispatcher dispatcher(NotificationSink sink, int queueCapacity) {
+        return new NotificationDispatcher(sink, meterRegistry, queueCapacity, 1, 20, 6000, 100,
+                3, Duration.ofMillis(1));
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,40 @@
+package accommodation.booking.app.notification;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void tryAcquire_BurstExhausted_RefillsAtConfiguredRate() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 20, clock::get);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertFalse(bucket.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1100));
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_LongIdle_DoesNotExceedCapacity() {
+        AtomicLong clock = new AtomicLong();
+        TokenBucket bucket = new TokenBucket(2, 20, clock::get);
+
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+}
@@ -0,0 +1,114 @@
+package accommodation.booking.app.notification.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.model.OutboxMessage;
+import accommodation.booking.app.notification.NotificationDispatcher;
+import accommodation.booking.app.repository.OutboxMessageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    private static final Duration CLAIM_TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new OutboxRelay(outboxMessageRepository, notificationDispatcher,
+                transactionManager, meterRegistry, 100, 10, CLAIM_TTL, Duration.ofDays(7));
+    }
+
+    @Test
+    void relay_ClaimedMessages_AreMarkedSentOnlyAfterDelivery() {
+        when(notificationDispatcher.remainingCapacity()).thenReturn(50);
+        when(outboxMessageRepository.findClaimableIds(10, 50)).thenReturn(List.of(1L, 2L));
+        when(outboxMessageRepository.findByIdInOrderByIdAsc(List.of(1L, 2L))).thenReturn(List.of(
+                new OutboxMessage().setId(1L).setMessage("first"),
+                new OutboxMessage().setId(2L).setMessage("second")));
+        when(notificationDispatcher.submit(any(), any())).thenReturn(true);
+
+        relay.relay();
+
+        verify(outboxMessageRepository).claim(List.of(1L, 2L), CLAIM_TTL.toMillis());
+        verify(outboxMessageRepository, never()).markSent(any());
+        ArgumentCaptor<Runnable> onDelivered = ArgumentCaptor.forClass(Runnable.class);
+        verify(notificationDispatcher).submit(eq("first"), onDelivered.capture());
+        onDelivered.getValue().run();
+
+        when(notificationDispatcher.remainingCapacity()).thenReturn(0);
+        relay.relay();
+
+        verify(outboxMessageRepository).markSent(List.of(1L));
+    }
+
+    @Test
+    void relay_DispatcherFull_DoesNotClaim() {
+        when(notificationDispatcher.remainingCapacity()).thenReturn(0);
+
+        relay.relay();
+
+        verify(outboxMessageRepository, never()).findClaimableIds(anyInt(), anyInt());
+    }
+
+    @Test
+    void relay_DispatcherFillsUpMidBatch_ReleasesUnsubmittedClaims() {
+        when(notificationDispatcher.remainingCapacity()).thenReturn(50);
+        when(outboxMessageRepository.findClaimableIds(10, 50)).thenReturn(List.of(1L, 2L, 3L));
+        when(outboxMessageRepository.findByIdInOrderByIdAsc(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(
+                        new OutboxMessage().setId(1L).setMessage("first"),
+                        new OutboxMessage().setId(2L).setMessage("second"),
+                        new OutboxMessage().setId(3L).setMessage("third")));
+        when(notificationDispatcher.submit(eq("first"), any())).thenReturn(true);
+        when(notificationDispatcher.submit(eq("second"), any())).thenReturn(false);
+
+        relay.relay();
+
+        verify(outboxMessageRepository).releaseClaims(List.of(2L, 3L));
+        verify(notificationDispatcher, never()).submit(eq("third"), any());
+    }
+
+    @Test
+    void relay_ExhaustedMessages_AreAbandonedAndCounted() {
+        when(outboxMessageRepository.findExhaustedIds(10, 100)).thenReturn(List.of(7L, 8L));
+        when(notificationDispatcher.remainingCapacity()).thenReturn(0);
+
+        relay.relay();
+
+        verify(outboxMessageRepository).markAbandoned(List.of(7L, 8L));
+        assertEquals(2.0, meterRegistry.get("notification.outbox.abandoned").counter().count());
+    }
+
+    @Test
+    void purge_DeletesDeliveredAndAbandonedMessagesPastRetention() {
+        relay.purge();
+
+        verify(outboxMessageRepository).deleteSentBefore(Duration.ofDays(7).toMillis());
+        verify(outboxMessageRepository).deleteAbandonedBefore(Duration.ofDays(7).toMillis());
+    }
+}
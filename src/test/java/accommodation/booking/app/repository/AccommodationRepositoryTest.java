@@ -4,13 +4,21 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.index.AccommodationAttributes;
+import accommodation.booking.app.index.AmenityAssignment;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Type;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -18,6 +26,8 @@ class AccommodationRepositoryTest {
 
     @Autowired
     private AccommodationRepository accommodationRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     void findByTypeAndSizeAndLocationId_WhenSeededRowExists_ReturnsAccommodation() {
@@ -53,4 +63,93 @@ class AccommodationRepositoryTest {
         assertEquals(1L, accommodation.get().getLocation().getId());
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAccommodationAttributes_ReturnsSeededRowsWithLocation() {
+        List<AccommodationAttributes> attributes =
+                accommodationRepository.findAccommodationAttributes();
+
+        AccommodationAttributes first = attributes.stream()
+                .filter(accommodation -> accommodation.id() == 1L)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(Type.APARTMENT, first.type());
+        assertEquals("Warsaw", first.city());
+        assertEquals("Poland", first.country());
+    }
+
+    @Test
+    void findAccommodationDtos_ReturnsKeysetPageOfProjections() {
+        List<AccommodationDto> firstPage = accommodationRepository.findAccommodationDtos(0L,
+                Limit.of(1));
+        List<AccommodationDto> secondPage = accommodationRepository.findAccommodationDtos(
+                firstPage.getFirst().id(), Limit.of(1));
+
+        assertEquals(1L, firstPage.getFirst().id());
+        assertEquals(Type.APARTMENT, firstPage.getFirst().type());
+        assertEquals(1L, firstPage.getFirst().locationId());
+        assertEquals(2L, secondPage.getFirst().id());
+    }
+
+    @Test
+    void findAmenityAssignmentsByAccommodationIdIn_ReturnsOrderedAmenityIds() {
+        List<Long> amenityIds = accommodationRepository
+                .findAmenityAssignmentsByAccommodationIdIn(List.of(1L)).stream()
+                .map(AmenityAssignment::amenityId)
+                .toList();
+
+        assertEquals(List.of(1L, 3L, 4L, 6L), amenityIds);
+    }
+
+    @Test
+    void findAllByIdInOrderByIdAsc_LoadsAmenitiesInConstantQueryCount() {
+        Statistics statistics = statistics();
+
+        long singleAccommodation = statementsToReadAmenities(statistics, List.of(1L));
+        long allAccommodations = statementsToReadAmenities(statistics, List.of(3L, 1L, 2L));
+
+        assertEquals(1, singleAccommodation);
+        assertEquals(singleAccommodation, allAccommodations);
+    }
+
+    @Test
+    void findAllById_BatchLoadsAmenitiesOfAllAccommodations() {
+        Statistics statistics = statistics();
+        entityManager.clear();
+        statistics.clear();
+
+        accommodationRepository.findAllById(List.of(1L, 2L, 3L))
+                .forEach(accommodation -> accommodation.getAmenities().size());
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findAmenityAssignments_ReturnsAmenitiesOfAccommodation() {
+        List<Long> amenityIds = accommodationRepository.findAmenityAssignments().stream()
+                .filter(assignment -> assignment.accommodationId() == 1L)
+                .map(AmenityAssignment::amenityId)
+                .sorted()
+                .toList();
+
+        assertEquals(List.of(1L, 3L, 4L, 6L), amenityIds);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        return statistics;
+    }
+
+    private long statementsToReadAmenities(Statistics statistics, List<Long> ids) {
+        entityManager.clear();
+        statistics.clear();
+        List<Accommodation> accommodations =
+                accommodationRepository.findAllByIdInOrderByIdAsc(ids);
+        accommodations.forEach(accommodation -> accommodation.getAmenities().size());
+        assertEquals(ids.stream().sorted().toList(), accommodations.stream()
+                .map(Accommodation::getId)
+                .toList());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -5,10 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import accommodation.booking.app.model.Amenity;
+import java.util.List;
+import java.util.Set;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -16,6 +21,8 @@ class AmenityRepositoryTest {
 
     @Autowired
     private AmenityRepository amenityRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     void findById_ReturnsAmenity() {
@@ -28,4 +35,34 @@ class AmenityRepositoryTest {
     void findById_ReturnsEmpty() {
         assertTrue(amenityRepository.findById(99999L).isEmpty());
     }
+
+    @Test
+    void findById_RepeatedRead_ServedFromSecondLevelCache() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        amenityRepository.findById(1L).orElseThrow();
+        entityManager.clear();
+        statistics.clear();
+
+        Amenity amenity = amenityRepository.findById(1L).orElseThrow();
+
+        assertEquals(1L, amenity.getId());
+        assertEquals(1, statistics.getDomainDataRegionStatistics("amenities").getHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findExistingIds_ChecksAllIdsInSingleStatement() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<Long> existing = amenityRepository.findExistingIds(
+                List.of(1L, 2L, 3L, 4L, 5L, 99998L, 99999L));
+
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L), Set.copyOf(existing));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
 }
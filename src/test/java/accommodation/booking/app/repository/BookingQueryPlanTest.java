@@ -0,0 +1,317 @@
+package accommodation.booking.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.model.Status;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * Runs each repository query against a realistic number of bookings, captures the SQL
+ * Hibernate actually sends to the database together with its bound parameters, and asserts
+ * that MySQL plans it without a full scan of {@code bookings} or {@code payments}.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Sql(scripts = "classpath:database/bookings/insert-query-plan-bookings.sql",
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(scripts = "classpath:database/bookings/delete-query-plan-bookings.sql",
+        executionPhase = Sql.ExecutionPhase.AFTER_TEST_CLASS)
+class BookingQueryPlanTest {
+    private static final Set<String> FULL_SCANS = Set.of("ALL", "index");
+    private static final Pattern CHECKED_TABLES =
+            Pattern.compile("bookings|payments|[bp]\\d+_\\d+");
+    private static final Pattern BOOKINGS_TABLE =
+            Pattern.compile("\\bbookings\\b", Pattern.CASE_INSENSITIVE);
+    private static final Set<Status> ACTIVE_STATUSES = Set.of(Status.PENDING, Status.CONFIRMED);
+    private static final List<String> NON_RESERVED_STATUS_NAMES =
+            BookingIntervalIndex.NON_RESERVED_STATUSES.stream().map(Status::name).toList();
+    private static final LocalDate CHECK_IN = LocalDate.of(2027, 1, 15);
+    private static final LocalDate CHECK_OUT = LocalDate.of(2027, 1, 20);
+    private static final LocalDate TODAY = LocalDate.of(2027, 3, 3);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CapturingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource.clear();
+    }
+
+    @Test
+    void countByUserIdAndStatus_ExecutedSqlUsesIndex() {
+        bookingRepository.countByUserIdAndStatus(2L, Status.PENDING);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findBookingDtosByUserId_ExecutedSqlUsesIndex() {
+        bookingRepository.findBookingDtosByUserId(2L, 100L, Limit.of(21));
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findBookingDtosByUserIdAndStatus_ExecutedSqlUsesIndex() {
+        bookingRepository.findBookingDtosByUserIdAndStatus(2L, Status.PENDING, 100L,
+                Limit.of(21));
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findOverlappingBookingIdsForShare_ExecutedSqlUsesIndex() {
+        bookingRepository.findOverlappingBookingIdsForShare(1L, CHECK_IN, CHECK_OUT,
+                NON_RESERVED_STATUS_NAMES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findOtherOverlappingBookingIdsForShare_ExecutedSqlUsesIndex() {
+        bookingRepository.findOtherOverlappingBookingIdsForShare(1L, 1L, CHECK_IN, CHECK_OUT,
+                NON_RESERVED_STATUS_NAMES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findReservedIntervals_ExecutedSqlUsesIndex() {
+        bookingRepository.findReservedIntervals(LocalDate.of(2027, 1, 1),
+                BookingIntervalIndex.NON_RESERVED_STATUSES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findReservedIntervalsByAccommodationId_ExecutedSqlUsesIndex() {
+        bookingRepository.findReservedIntervalsByAccommodationId(1L, LocalDate.of(2027, 1, 1),
+                BookingIntervalIndex.NON_RESERVED_STATUSES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findExpiringBookings_ExecutedSqlUsesIndex() {
+        bookingRepository.findExpiringBookings(0L, TODAY, ACTIVE_STATUSES, 0, 4,
+                Limit.of(500));
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void expireBookings_ExecutedSqlUsesPrimaryKey() {
+        bookingRepository.expireBookings(List.of(1L, 2L, 3L), ACTIVE_STATUSES, Status.EXPIRED);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findExpiringBookingById_ExecutedSqlUsesPrimaryKey() {
+        bookingRepository.findExpiringBookingById(1L);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void expireCheckedOutBooking_ExecutedSqlUsesPrimaryKey() {
+        bookingRepository.expireCheckedOutBooking(2L, TODAY, ACTIVE_STATUSES, Status.EXPIRED);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void expireUnpaidHold_ExecutedSqlUsesPrimaryKeyAndPaymentBookingIndex() {
+        bookingRepository.expireUnpaidHold(1L, LocalDateTime.of(2027, 1, 1, 10, 30),
+                Status.PENDING, Status.EXPIRED);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void findScheduledBookings_ExecutedSqlUsesIndex() {
+        bookingRepository.findScheduledBookings(ACTIVE_STATUSES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void lockActiveIds_ExecutedSqlUsesPrimaryKey() {
+        bookingRepository.lockActiveIds(List.of(1L, 2L, 3L),
+                ACTIVE_STATUSES.stream().map(Status::name).toList());
+        assertExecutedSqlUsesIndexes();
+    }
+
+    @Test
+    void checkForActiveBookingsOnDate_ExecutedSqlUsesIndex() {
+        bookingRepository.checkForActiveBookingsOnDate(1L, CHECK_IN, ACTIVE_STATUSES);
+        assertExecutedSqlUsesIndexes();
+    }
+
+    private void assertExecutedSqlUsesIndexes() {
+        List<CapturedStatement> statements = dataSource.statements().stream()
+                .filter(statement -> BOOKINGS_TABLE.matcher(statement.sql()).find())
+                .toList();
+
+        assertFalse(statements.isEmpty(), "No SQL touching bookings was executed");
+        for (CapturedStatement statement : statements) {
+            assertNoFullScan(statement);
+        }
+    }
+
+    private void assertNoFullScan(CapturedStatement statement) {
+        List<Object[]> plan = explain(statement);
+        List<Object[]> checkedRows = plan.stream()
+                .filter(row -> row[2] != null
+                        && CHECKED_TABLES.matcher(row[2].toString()).matches())
+                .toList();
+
+        String sql = statement.sql();
+        assertFalse(checkedRows.isEmpty(), () -> "No plan rows for: " + sql);
+        for (Object[] row : checkedRows) {
+            assertFalse(FULL_SCANS.contains(row[4]),
+                    () -> "Full scan (" + row[4] + ") of " + row[2] + " for: " + sql);
+            assertNotNull(row[6], () -> "No index used on " + row[2] + " for: " + sql);
+        }
+    }
+
+    private List<Object[]> explain(CapturedStatement statement) {
+        try (Connection connection = dataSource.getTargetDataSource().getConnection();
+                PreparedStatement explain = connection.prepareStatement("EXPLAIN "
+                        + statement.sql())) {
+            for (ParameterBinding binding : statement.bindings()) {
+                binding.method().invoke(explain, binding.args());
+            }
+            List<Object[]> rows = new ArrayList<>();
+            try (ResultSet resultSet = explain.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    Object[] row = new Object[columns];
+                    for (int i = 0; i < columns; i++) {
+                        row[i] = resultSet.getObject(i + 1);
+                    }
+                    rows.add(row);
+                }
+            }
+            return rows;
+        } catch (SQLException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't explain: " + statement.sql(), e);
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCaptureConfig {
+        @Bean
+        static BeanPostProcessor capturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource
+                            && !(bean instanceof CapturingDataSource)) {
+                        return new CapturingDataSource(dataSource);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Records every prepared statement executed through the wrapped data source, with the
+     * parameter setter calls that were applied to it, so the test can replay them on
+     * {@code EXPLAIN}.
+     */
+    static class CapturingDataSource extends DelegatingDataSource {
+        private final List<CapturedStatement> statements = new ArrayList<>();
+
+        CapturingDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capture(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capture(super.getConnection(username, password));
+        }
+
+        synchronized List<CapturedStatement> statements() {
+            return List.copyOf(statements);
+        }
+
+        synchronized void clear() {
+            statements.clear();
+        }
+
+        private synchronized void add(CapturedStatement statement) {
+            statements.add(statement);
+        }
+
+        private Connection capture(Connection connection) {
+            return proxy(Connection.class, (proxy, method, args) -> {
+                Object result = invoke(connection, method, args);
+                if (result instanceof PreparedStatement statement
+                        && method.getName().startsWith("prepare")) {
+                    return capture(statement, (String) args[0]);
+                }
+                return result;
+            });
+        }
+
+        private PreparedStatement capture(PreparedStatement statement, String sql) {
+            List<ParameterBinding> bindings = new ArrayList<>();
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && method.getParameterCount() >= 2
+                        && method.getParameterTypes()[0] == int.class) {
+                    bindings.add(new ParameterBinding(method, args.clone()));
+                } else if (name.equals("clearParameters")) {
+                    bindings.clear();
+                } else if (name.startsWith("execute") && method.getParameterCount() == 0) {
+                    add(new CapturedStatement(sql, List.copyOf(bindings)));
+                }
+                return invoke(statement, method, args);
+            });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    handler);
+        }
+    }
+
+    record CapturedStatement(String sql, List<ParameterBinding> bindings) {
+    }
+
+    record ParameterBinding(Method method, Object[] args) {
+    }
+}
@@ -1,19 +1,29 @@
 package accommodation.booking.app.repository;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import accommodation.booking.app.dto.booking.BookingDto;
+import accommodation.booking.app.dto.booking.ExpiringBookingDto;
+import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Booking;
 import accommodation.booking.app.model.Status;
+import accommodation.booking.app.model.User;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.IntStream;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SessionStatistics;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -21,50 +31,149 @@ class BookingRepositoryTest {
 
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
-    void findByUserIdAndStatus_ReturnsList_Success() {
-        List<Booking> bookings = bookingRepository.findByUserIdAndStatus(2L, Status.CONFIRMED);
-        assertFalse(bookings.isEmpty());
-        assertEquals(1, bookings.size());
-        assertTrue(bookings.stream().anyMatch(b -> b.getId() != null && b.getId().equals(2L)));
-        assertEquals(2L, bookings.get(0).getId());
+    void countByUserIdAndStatus_CountsWithoutLoadingBookings() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        entityManager.clear();
+        statistics.clear();
+
+        int listed = bookingRepository.findBookingDtosByUserIdAndStatus(2L, Status.PENDING, 0L,
+                Limit.unlimited()).size();
+        statistics.clear();
+        long counted = bookingRepository.countByUserIdAndStatus(2L, Status.PENDING);
+
+        assertEquals(listed, counted);
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, bookingRepository.countByUserIdAndStatus(3L, Status.PENDING));
     }
 
     @Test
-    void findByUserId_ReturnsList_Success() {
-        List<Booking> bookings = bookingRepository.findByUserId(2L);
-        assertFalse(bookings.isEmpty());
-        assertEquals(2, bookings.size());
-        assertEquals(2L, bookings.get(1).getId());
+    void saveAll_PooledIds_DefersInsertsToBatchedFlush() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        Accommodation accommodation = entityManager.getEntityManager()
+                .getReference(Accommodation.class, 1L);
+        User user = entityManager.getEntityManager().getReference(User.class, 3L);
+        List<Booking> bookings = IntStream.range(0, 5)
+                .mapToObj(i -> new Booking()
+                        .setCheckInDate(LocalDate.of(2040, 1, 1).plusDays(i))
+                        .setCheckOutDate(LocalDate.of(2040, 1, 2).plusDays(i))
+                        .setAccommodation(accommodation)
+                        .setUser(user)
+                        .setStatus(Status.PENDING))
+                .toList();
+
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+
+        assertTrue(saved.stream().allMatch(b -> b.getId() != null && b.getId() > 3));
+        assertEquals(5, saved.stream().map(Booking::getId).distinct().count());
+        assertEquals(0, statistics.getEntityInsertCount());
+        entityManager.flush();
+        assertEquals(5, statistics.getEntityInsertCount());
     }
 
     @Test
-    void findReservedAccommodations_ReturnsBooking_Success() {
-        List<Booking> reserved = bookingRepository.findReservedAccommodations(
-                1L,
-                LocalDate.of(2027, 1, 15),
-                LocalDate.of(2027,1,15),
-                EnumSet.of(Status.CANCELED, Status.EXPIRED)
-        );
+    void findBookingDtosByUserId_ReturnsNextKeysetPage() {
+        List<BookingDto> firstPage = bookingRepository.findBookingDtosByUserId(2L, 0L,
+                Limit.of(1));
+        List<BookingDto> secondPage = bookingRepository.findBookingDtosByUserId(2L,
+                firstPage.get(0).id(), Limit.of(1));
 
-        assertFalse(reserved.isEmpty());
-        assertTrue(reserved.stream().anyMatch(b -> b.getAccommodation().getId().equals(1L)));
+        assertEquals(1L, firstPage.get(0).id());
+        assertEquals(2L, firstPage.get(0).userId());
+        assertEquals("PENDING", firstPage.get(0).status());
+        assertEquals(2L, secondPage.get(0).id());
     }
 
     @Test
-    void findBookingsToExpire_ReturnsBookings_Success() {
-        List<Booking> toExpire = bookingRepository.findBookingsToExpire(
-                LocalDate.of(2027, 2, 1),
-                EnumSet.of(Status.PENDING, Status.CONFIRMED)
-        );
+    void findBookingDtosByUserIdAndStatus_LeavesPersistenceContextEmpty() {
+        SessionStatistics statistics = entityManager.getEntityManager()
+                .unwrap(Session.class).getStatistics();
+        entityManager.clear();
+
+        List<BookingDto> bookings = bookingRepository.findBookingDtosByUserIdAndStatus(2L,
+                Status.CONFIRMED, 0L, Limit.of(10));
+
+        assertEquals(List.of(2L), bookings.stream().map(BookingDto::id).toList());
+        assertEquals(2L, bookings.getFirst().accommodationId());
+        assertEquals(0, statistics.getEntityCount());
+        bookingRepository.findById(2L);
+        assertTrue(statistics.getEntityCount() > 0);
+    }
+
+    @Test
+    void findExpiringBookings_ReturnsIdOrderedBatchAfterCursor() {
+        List<ExpiringBookingDto> firstBatch = bookingRepository.findExpiringBookings(0L,
+                LocalDate.of(2027, 3, 3), EnumSet.of(Status.PENDING, Status.CONFIRMED), 0, 1,
+                Limit.of(1));
+        List<ExpiringBookingDto> secondBatch = bookingRepository.findExpiringBookings(
+                firstBatch.getFirst().id(), LocalDate.of(2027, 3, 3),
+                EnumSet.of(Status.PENDING, Status.CONFIRMED), 0, 1, Limit.of(1));
+
+        assertEquals(1L, firstBatch.getFirst().id());
+        assertEquals(2L, firstBatch.getFirst().userId());
+        assertEquals("jane@google.pl", firstBatch.getFirst().userEmail());
+        assertEquals(2L, secondBatch.getFirst().id());
+    }
+
+    @Test
+    void findExpiringBookings_FiltersByAccommodationPartition() {
+        List<ExpiringBookingDto> evenAccommodations = bookingRepository.findExpiringBookings(0L,
+                LocalDate.of(2027, 3, 3), EnumSet.of(Status.PENDING, Status.CONFIRMED), 0, 2,
+                Limit.of(10));
+
+        assertEquals(1, evenAccommodations.size());
+        assertEquals(2L, evenAccommodations.getFirst().accommodationId());
+    }
+
+    @Test
+    void expireBookings_UpdatesOnlyActiveBookings() {
+        int updated = bookingRepository.expireBookings(List.of(1L, 3L),
+                EnumSet.of(Status.PENDING, Status.CONFIRMED), Status.EXPIRED);
+
+        assertEquals(1, updated);
+        entityManager.clear();
+        assertEquals(Status.EXPIRED, bookingRepository.findById(1L).orElseThrow().getStatus());
+    }
+
+    @Test
+    void lockActiveIds_ReturnsOnlyActiveBookings() {
+        assertEquals(List.of(1L), bookingRepository.lockActiveIds(List.of(1L, 3L),
+                List.of(Status.PENDING.name(), Status.CONFIRMED.name())));
+    }
+
+    @Test
+    void expireCheckedOutBooking_ExpiresOnlyOnCheckOutDate() {
+        EnumSet<Status> active = EnumSet.of(Status.PENDING, Status.CONFIRMED);
+
+        assertEquals(0, bookingRepository.expireCheckedOutBooking(2L,
+                LocalDate.of(2027, 3, 1), active, Status.EXPIRED));
+        assertEquals(1, bookingRepository.expireCheckedOutBooking(2L,
+                LocalDate.of(2027, 3, 2), active, Status.EXPIRED));
+    }
+
+    @Test
+    void expireUnpaidHold_SkipsBookingsWithPendingPayment() {
+        entityManager.getEntityManager().createNativeQuery("""
+                UPDATE bookings SET status = 'PENDING', created_at = '2027-01-01 10:00:00'
+                 WHERE id IN (1, 3)
+                """).executeUpdate();
+        LocalDateTime createdBefore = LocalDateTime.of(2027, 1, 1, 10, 30);
 
-        assertFalse(toExpire.isEmpty());
-        Booking booking = toExpire.getFirst();
-        assertNotNull(booking.getAccommodation());
-        assertNotNull(booking.getUser());
-        assertNotNull(booking.getAccommodation().getId());
-        assertNotNull(booking.getUser().getId());
+        assertEquals(0, bookingRepository.expireUnpaidHold(1L, createdBefore,
+                Status.PENDING, Status.EXPIRED));
+        assertEquals(1, bookingRepository.expireUnpaidHold(3L, createdBefore,
+                Status.PENDING, Status.EXPIRED));
+        assertEquals(0, bookingRepository.expireUnpaidHold(3L, createdBefore,
+                Status.PENDING, Status.EXPIRED));
     }
 
     @Test
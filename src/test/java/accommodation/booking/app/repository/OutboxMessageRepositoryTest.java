@@ -0,0 +1,93 @@
+package accommodation.booking.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import accommodation.booking.app.model.OutboxMessage;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OutboxMessageRepositoryTest {
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void claim_ClaimedMessage_IsNotClaimableAgainUntilTtlPasses() {
+        outboxMessageRepository.enqueue("booking created");
+        List<Long> ids = outboxMessageRepository.findClaimableIds(10, 10);
+
+        assertEquals(1, ids.size());
+        assertEquals(1, outboxMessageRepository.claim(ids, 60_000));
+        assertTrue(outboxMessageRepository.findClaimableIds(10, 10).isEmpty());
+    }
+
+    @Test
+    void markSent_DeliveredMessage_IsNoLongerClaimable() {
+        outboxMessageRepository.enqueue("payment succeeded");
+        List<Long> ids = outboxMessageRepository.findClaimableIds(10, 10);
+
+        outboxMessageRepository.markSent(ids);
+        entityManager.clear();
+
+        OutboxMessage message = outboxMessageRepository.findById(ids.getFirst()).orElseThrow();
+        assertEquals("payment succeeded", message.getMessage());
+        assertNotNull(message.getSentAt());
+        assertTrue(outboxMessageRepository.findClaimableIds(10, 10).isEmpty());
+    }
+
+    @Test
+    void releaseClaims_UnsubmittedMessage_IsClaimableAgainWithoutUsingAnAttempt() {
+        outboxMessageRepository.enqueue("booking canceled");
+        List<Long> ids = outboxMessageRepository.findClaimableIds(10, 10);
+        outboxMessageRepository.claim(ids, 60_000);
+
+        assertEquals(1, outboxMessageRepository.releaseClaims(ids));
+        entityManager.clear();
+
+        assertEquals(ids, outboxMessageRepository.findClaimableIds(10, 10));
+        assertEquals(0, outboxMessageRepository.findById(ids.getFirst()).orElseThrow()
+                .getAttempts());
+    }
+
+    @Test
+    void findExhaustedIds_LastAttemptExpired_ReturnsMessageUntilAbandoned() {
+        outboxMessageRepository.enqueue("payment canceled");
+        List<Long> ids = outboxMessageRepository.findClaimableIds(1, 10);
+        outboxMessageRepository.claim(ids, 0);
+
+        assertTrue(outboxMessageRepository.findClaimableIds(1, 10).isEmpty());
+        assertEquals(ids, outboxMessageRepository.findExhaustedIds(1, 10));
+
+        outboxMessageRepository.markAbandoned(ids);
+        entityManager.clear();
+
+        assertTrue(outboxMessageRepository.findExhaustedIds(1, 10).isEmpty());
+        assertNotNull(outboxMessageRepository.findById(ids.getFirst()).orElseThrow()
+                .getAbandonedAt());
+    }
+
+    @Test
+    void deleteAbandonedBefore_RemovesOnlyAbandonedMessagesPastRetention() {
+        outboxMessageRepository.enqueue("booking expired");
+        outboxMessageRepository.enqueue("booking confirmed");
+        List<Long> ids = outboxMessageRepository.findClaimableIds(10, 10);
+        outboxMessageRepository.markAbandoned(List.of(ids.getFirst()));
+
+        assertEquals(0, outboxMessageRepository.deleteAbandonedBefore(60_000));
+        assertEquals(1, outboxMessageRepository.deleteAbandonedBefore(0));
+        entityManager.clear();
+
+        assertTrue(outboxMessageRepository.findById(ids.getFirst()).isEmpty());
+        assertTrue(outboxMessageRepository.findById(ids.getLast()).isPresent());
+    }
+}
@@ -1,17 +1,27 @@
 package accommodation.booking.app.repository;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.model.Payment;
 import accommodation.booking.app.model.Status;
+import java.math.BigDecimal;
+import java.net.URL;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.Session;
+import org.hibernate.stat.SessionStatistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -19,6 +29,23 @@ class PaymentRepositoryTest {
 
     @Autowired
     private PaymentRepository paymentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void findPaymentDtosByUserId_ReturnsProjectionsWithoutLoadingEntities() {
+        SessionStatistics statistics = entityManager.getEntityManager()
+                .unwrap(Session.class).getStatistics();
+        entityManager.clear();
+
+        List<PaymentDto> payments = paymentRepository.findPaymentDtosByUserId(2L, 0L,
+                Limit.of(10));
+
+        assertEquals(List.of(1L, 2L), payments.stream().map(PaymentDto::id).toList());
+        assertEquals(1L, payments.getFirst().bookingId());
+        assertEquals("PENDING", payments.getFirst().status());
+        assertEquals(0, statistics.getEntityCount());
+    }
 
     @Test
     void findAllByBookingId_User_Id_ReturnsList_Success() {
@@ -47,4 +74,104 @@ class PaymentRepositoryTest {
         assertFalse(payments.isEmpty());
         assertTrue(payments.stream().allMatch(p -> p.getStatus() == Status.PENDING));
     }
+
+    @Test
+    void saveAndFlush_SecondPendingPaymentForBooking_IsRejected() {
+        Payment pending = paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING)
+                .orElseThrow();
+        Payment duplicate = new Payment()
+                .setBookingId(pending.getBookingId())
+                .setStatus(Status.PENDING)
+                .setAmountToPay(BigDecimal.ONE);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> paymentRepository.saveAndFlush(duplicate));
+    }
+
+    @Test
+    void saveAndFlush_CanceledPaymentForBookingWithPendingOne_IsAllowed() {
+        Payment pending = paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING)
+                .orElseThrow();
+
+        Payment canceled = paymentRepository.saveAndFlush(new Payment()
+                .setBookingId(pending.getBookingId())
+                .setStatus(Status.CANCELED)
+                .setAmountToPay(BigDecimal.ONE));
+
+        assertNotNull(canceled.getId());
+    }
+
+    @Test
+    void findReconcilablePayments_ReturnsPendingPaymentsOfPartition() {
+        List<Payment> odd = paymentRepository.findReconcilablePayments(0L, Status.PENDING, 1, 2,
+                Limit.of(10));
+        List<Payment> even = paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0,
+                2, Limit.of(10));
+
+        assertEquals(List.of(1L), odd.stream().map(Payment::getId).toList());
+        assertTrue(even.isEmpty());
+    }
+
+    @Test
+    void findBySessionId_NewPayment_IsFoundThroughHash() {
+        Payment pending = paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING)
+                .orElseThrow();
+        paymentRepository.saveAndFlush(new Payment()
+                .setBookingId(pending.getBookingId())
+                .setStatus(Status.CANCELED)
+                .setSessionId("cs_test_hash_lookup")
+                .setAmountToPay(BigDecimal.ONE));
+        entityManager.clear();
+
+        Payment found = paymentRepository.findBySessionId("cs_test_hash_lookup").orElseThrow();
+
+        assertEquals(16, found.getSessionIdHash().length);
+    }
+
+    @Test
+    void attachSession_OnlyUpdatesPendingPayment() throws Exception {
+        Payment pending = paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING)
+                .orElseThrow();
+        Payment canceled = paymentRepository.saveAndFlush(new Payment()
+                .setBookingId(pending.getBookingId())
+                .setStatus(Status.CANCELED)
+                .setAmountToPay(BigDecimal.ONE));
+
+        assertEquals(0, paymentRepository.attachSession(canceled.getId(), "cs_test_canceled",
+                new URL("https://checkout.stripe.com/c/pay/cs_test_canceled")));
+        assertEquals(1, paymentRepository.attachSession(pending.getId(), "cs_test_attached",
+                new URL("https://checkout.stripe.com/c/pay/cs_test_attached")));
+        entityManager.clear();
+
+        assertEquals(pending.getId(), paymentRepository.findBySessionId("cs_test_attached")
+                .orElseThrow().getId());
+        assertTrue(paymentRepository.findBySessionId("cs_test_canceled").isEmpty());
+    }
+
+    @Test
+    void updateStatus_OnlyMatchesExpectedStatus() {
+        Payment pending = paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING)
+                .orElseThrow();
+
+        assertEquals(0, paymentRepository.updateStatus(pending.getId(), Status.CONFIRMED,
+                Status.CANCELED));
+        assertEquals(1, paymentRepository.updateStatus(pending.getId(), Status.PENDING,
+                Status.CANCELED));
+        assertEquals(0, paymentRepository.updateStatus(pending.getId(), Status.PENDING,
+                Status.CANCELED));
+        entityManager.clear();
+
+        assertEquals(Status.CANCELED, paymentRepository.findById(pending.getId())
+                .orElseThrow().getStatus());
+    }
+
+    @Test
+    void sessionIdHashLookup_UsesUniqueIndex() {
+        Object[] plan = (Object[]) entityManager.getEntityManager().createNativeQuery("""
+                EXPLAIN SELECT * FROM payments
+                 WHERE session_id_hash = UNHEX(LEFT(SHA2('cs_test_a1ul8GYVbyk0MZL75ePtaVvC0PYm8TNXMwcq3Flcze0fZBIX4SvzhlJkIM', 256), 32))
+                """).getSingleResult();
+
+        assertEquals("uk_payments_session_id_hash", plan[6]);
+    }
 }
@@ -5,10 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import accommodation.booking.app.model.Role;
 import accommodation.booking.app.model.RoleName;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -16,6 +19,8 @@ class RoleRepositoryTest {
 
     @Autowired
     private RoleRepository roleRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     void findByRoleName_ReturnsRole_Success() {
@@ -24,4 +29,20 @@ class RoleRepositoryTest {
         assertEquals(RoleName.ADMIN, role.getRoleName());
         assertEquals("ROLE_ADMIN", role.getAuthority());
     }
+
+    @Test
+    void findByRoleName_RepeatedLookup_ServedFromQueryCache() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        roleRepository.findByRoleName(RoleName.CUSTOMER).orElseThrow();
+        entityManager.clear();
+        statistics.clear();
+
+        Role role = roleRepository.findByRoleName(RoleName.CUSTOMER).orElseThrow();
+
+        assertEquals(RoleName.CUSTOMER, role.getRoleName());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
 }
@@ -0,0 +1,45 @@
+package accommodation.booking.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchedulerLeaseRepositoryTest {
+    private static final String LEASE = "test-job-0";
+    private static final long TTL_MILLIS = 60_000;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Test
+    void acquire_LeaseHeldByAnotherNode_ReturnsZero() {
+        schedulerLeaseRepository.createIfAbsent(LEASE);
+
+        assertEquals(1, schedulerLeaseRepository.acquire(LEASE, "node-a", TTL_MILLIS));
+        assertEquals(0, schedulerLeaseRepository.acquire(LEASE, "node-b", TTL_MILLIS));
+        assertEquals(1, schedulerLeaseRepository.renew(LEASE, "node-a", TTL_MILLIS));
+        assertEquals(0, schedulerLeaseRepository.renew(LEASE, "node-b", TTL_MILLIS));
+    }
+
+    @Test
+    void acquire_ExpiredOrReleasedLease_CanBeTakenOver() {
+        schedulerLeaseRepository.createIfAbsent(LEASE);
+        schedulerLeaseRepository.acquire(LEASE, "node-a", -1);
+
+        assertEquals(1, schedulerLeaseRepository.acquire(LEASE, "node-b", TTL_MILLIS));
+        assertEquals(0, schedulerLeaseRepository.release(LEASE, "node-a"));
+        assertEquals(1, schedulerLeaseRepository.release(LEASE, "node-b"));
+        assertEquals(1, schedulerLeaseRepository.acquire(LEASE, "node-a", TTL_MILLIS));
+    }
+
+    @Test
+    void createIfAbsent_ExistingLease_IsIgnored() {
+        assertEquals(1, schedulerLeaseRepository.createIfAbsent(LEASE));
+        assertEquals(0, schedulerLeaseRepository.createIfAbsent(LEASE));
+    }
+}
@@ -0,0 +1,72 @@
+package accommodation.booking.app.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import accommodation.booking.app.model.StripeEvent;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class StripeEventRepositoryTest {
+
+    @Autowired
+    private StripeEventRepository stripeEventRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void insertIfAbsent_RedeliveredEvent_IsStoredOnce() {
+        assertEquals(1, stripeEventRepository.insertIfAbsent("evt_1",
+                "checkout.session.completed", "cs_1", "paid"));
+        assertEquals(0, stripeEventRepository.insertIfAbsent("evt_1",
+                "checkout.session.completed", "cs_1", "paid"));
+
+        assertEquals(List.of("evt_1"), stripeEventRepository.findPendingIds(10));
+    }
+
+    @Test
+    void markProcessed_ProcessedEvent_IsNoLongerPending() {
+        stripeEventRepository.insertIfAbsent("evt_2", "checkout.session.expired", "cs_2",
+                "unpaid");
+
+        stripeEventRepository.markProcessed(List.of("evt_2"));
+        entityManager.clear();
+
+        StripeEvent event = stripeEventRepository.findById("evt_2").orElseThrow();
+        assertEquals("cs_2", event.getSessionId());
+        assertNotNull(event.getProcessedAt());
+        assertTrue(stripeEventRepository.findPendingIds(10).isEmpty());
+    }
+
+    @Test
+    void claim_ClaimedEvent_IsNotPendingUntilRetryDelayPasses() {
+        stripeEventRepository.insertIfAbsent("evt_3", "checkout.session.completed", "cs_3",
+                "paid");
+
+        assertEquals(1, stripeEventRepository.claim(List.of("evt_3"), 60_000));
+
+        assertTrue(stripeEventRepository.findPendingIds(10).isEmpty());
+    }
+
+    @Test
+    void markFailed_ExhaustedEvent_IsNoLongerPendingAndKeepsError() {
+        stripeEventRepository.insertIfAbsent("evt_4", "checkout.session.completed", "cs_4",
+                "paid");
+
+        stripeEventRepository.markFailed("evt_4", 10, "IllegalStateException: boom");
+        entityManager.clear();
+
+        StripeEvent event = stripeEventRepository.findById("evt_4").orElseThrow();
+        assertEquals(10, event.getAttempts());
+        assertEquals("IllegalStateException: boom", event.getLastError());
+        assertNotNull(event.getFailedAt());
+        assertTrue(stripeEventRepository.findPendingIds(10).isEmpty());
+    }
+}
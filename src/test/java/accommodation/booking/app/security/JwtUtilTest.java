@@ -0,0 +1,66 @@
+package accommodation.booking.app.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class JwtUtilTest {
+    private static final String SECRET =
+            "TEST456789abcdef0123456789TESTef0123456789abcdef0123456789abTEST";
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void getVerifiedClaims_RepeatedToken_ParsedOnce() {
+        JwtUtil jwtUtil = new JwtUtil(3600000, SECRET, 100, meterRegistry);
+        String token = jwtUtil.generateToken("james@google.com");
+
+        assertEquals("james@google.com", jwtUtil.getVerifiedClaims(token).getSubject());
+        assertEquals("james@google.com", jwtUtil.getUsername(token));
+        assertTrue(jwtUtil.isValidToken(token));
+
+        assertEquals(1, gets("miss"));
+        assertEquals(2, gets("hit"));
+        assertEquals(1, jwtUtil.getClaimsCache().estimatedSize());
+    }
+
+    @Test
+    void getVerifiedClaims_TamperedToken_ThrowsAndIsNotCached() {
+        JwtUtil jwtUtil = new JwtUtil(3600000, SECRET, 100, meterRegistry);
+        String token = jwtUtil.generateToken("james@google.com");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtException.class, () -> jwtUtil.getVerifiedClaims(tampered));
+        assertEquals(0, jwtUtil.getClaimsCache().estimatedSize());
+    }
+
+    @Test
+    void getVerifiedClaims_ExpiredToken_Throws() {
+        JwtUtil jwtUtil = new JwtUtil(-1000, SECRET, 100, meterRegistry);
+        String token = jwtUtil.generateToken("james@google.com");
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.getVerifiedClaims(token));
+        assertEquals(0, jwtUtil.getClaimsCache().estimatedSize());
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "jwt.claims")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
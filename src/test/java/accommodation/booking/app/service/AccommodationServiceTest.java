@@ -1,22 +1,36 @@
 package accommodation.booking.app.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import accommodation.booking.app.dto.accommodation.AccommodationDto;
+import accommodation.booking.app.dto.accommodation.AccommodationFacetsDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchParametersDto;
+import accommodation.booking.app.dto.accommodation.AccommodationSearchResultDto;
 import accommodation.booking.app.dto.accommodation.AccommodationUpdateRequestDto;
+import accommodation.booking.app.dto.accommodation.AvailabilityDto;
 import accommodation.booking.app.dto.accommodation.CreateAccommodationRequestDto;
+import accommodation.booking.app.dto.accommodation.MonthAvailabilityDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.exception.AccommodationException;
 import accommodation.booking.app.exception.EntityNotFoundException;
+import accommodation.booking.app.index.AccommodationSearchIndex;
+import accommodation.booking.app.index.AmenityAssignment;
+import accommodation.booking.app.index.AvailabilityCalendar;
 import accommodation.booking.app.mapper.AccommodationMapper;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Amenity;
@@ -25,17 +39,24 @@ import accommodation.booking.app.model.Type;
 import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.AccommodationRepository;
 import accommodation.booking.app.repository.AmenityRepository;
+import accommodation.booking.app.repository.BookingGuardRepository;
 import accommodation.booking.app.repository.LocationRepository;
 import accommodation.booking.app.service.impl.AccommodationServiceImpl;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 @ExtendWith(MockitoExtension.class)
 class AccommodationServiceTest {
@@ -53,6 +74,12 @@ class AccommodationServiceTest {
     private LocationRepository locationRepository;
     @Mock
     private AmenityRepository amenityRepository;
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+    @Mock
+    private AccommodationSearchIndex accommodationSearchIndex;
+    @Mock
+    private BookingGuardRepository bookingGuardRepository;
 
     @Test
     void createAccommodation_SendsTelegramNotificationAndReturnsDto() {
@@ -68,8 +95,7 @@ class AccommodationServiceTest {
         when(accommodationRepository.findByTypeAndSizeAndLocationId(Type.APARTMENT, "Studio", 1L))
                 .thenReturn(Optional.empty());
 
-        when(amenityRepository.findById(1L)).thenReturn(Optional.of(new Amenity().setId(1L)));
-        when(amenityRepository.findById(3L)).thenReturn(Optional.of(new Amenity().setId(3L)));
+        when(amenityRepository.findExistingIds(List.of(1L, 3L))).thenReturn(List.of(1L, 3L));
 
         Location location = new Location().setId(1L).setCountry("Poland").setCity("Warsaw").setStreet("X");
         when(locationRepository.findById(1L)).thenReturn(Optional.of(location));
@@ -102,8 +128,12 @@ class AccommodationServiceTest {
         assertEquals(Type.APARTMENT, actual.type());
 
         verify(accommodationRepository, times(1)).save(accommodation);
+        verify(bookingGuardRepository).save(argThat(guard ->
+                guard.getAccommodationId().equals(1L) && guard.getVersion() == 0L));
         verify(accommodationMapper, times(1)).toDto(savedAccommodation);
         verify(notifier, times(1)).telegramSendMessage(anyString());
+        verify(amenityRepository, times(1)).findExistingIds(List.of(1L, 3L));
+        verifyNoMoreInteractions(amenityRepository);
     }
 
     @Test
@@ -145,13 +175,13 @@ class AccommodationServiceTest {
 
         when(accommodationRepository.findByTypeAndSizeAndLocationId(Type.APARTMENT, "Studio", 1L))
                 .thenReturn(Optional.empty());
-        when(amenityRepository.findById(999L)).thenReturn(Optional.empty());
+        when(amenityRepository.findExistingIds(List.of(999L))).thenReturn(List.of());
 
         EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
                 () -> service.createAccommodation(request));
         assertTrue(exception.getMessage().contains("Amenity"));
 
-        verify(amenityRepository).findById(999L);
+        verify(amenityRepository).findExistingIds(List.of(999L));
         verifyNoInteractions(locationRepository);
         verifyNoInteractions(accommodationMapper);
         verifyNoInteractions(notifier);
@@ -159,30 +189,47 @@ class AccommodationServiceTest {
     }
 
     @Test
-    void getAccommodations_ReturnsAccommodationsDtos() {
-        Accommodation apartmentAccommodation = new Accommodation()
-                .setId(1L).setType(Type.APARTMENT).setSize("Studio");
-        Accommodation houseAccommodation = new Accommodation()
-                .setId(2L).setType(Type.HOUSE).setSize("150m2");
-        when(accommodationRepository.findAll()).thenReturn(
-                List.of(apartmentAccommodation, houseAccommodation));
+    void createAccommodation_WhenSeveralAmenitiesMissing_ReportsAllInOneQuery() {
+        List<Long> amenityIds = List.of(1L, 997L, 3L, 998L, 997L);
+        CreateAccommodationRequestDto request = new CreateAccommodationRequestDto(
+                Type.APARTMENT, 1L, "Studio", amenityIds, BigDecimal.valueOf(10), 1);
+        when(accommodationRepository.findByTypeAndSizeAndLocationId(Type.APARTMENT, "Studio", 1L))
+                .thenReturn(Optional.empty());
+        when(amenityRepository.findExistingIds(amenityIds)).thenReturn(List.of(1L, 3L));
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> service.createAccommodation(request));
+
+        assertEquals("Amenity ids [997, 998] not found in database", exception.getMessage());
+        verify(amenityRepository, times(1)).findExistingIds(amenityIds);
+        verifyNoMoreInteractions(amenityRepository);
+        verifyNoInteractions(locationRepository);
+    }
 
+    @Test
+    void getAccommodations_ReturnsProjectedDtosWithAmenityIds() {
         AccommodationDto apartmentAccommodationDto = new AccommodationDto(
-                1L, Type.APARTMENT, 10L, "Studio", List.of(1L, 3L), BigDecimal.valueOf(10), 1);
+                1L, Type.APARTMENT, 10L, "Studio", BigDecimal.valueOf(10), 1);
         AccommodationDto houseAccommodationDto = new AccommodationDto(
-                2L, Type.HOUSE, 11L, "200m2", List.of(2L, 5L), BigDecimal.valueOf(100), 1);
-        when(accommodationMapper.toDto(apartmentAccommodation)).thenReturn(apartmentAccommodationDto);
-        when(accommodationMapper.toDto(houseAccommodation)).thenReturn(houseAccommodationDto);
+                2L, Type.HOUSE, 11L, "200m2", BigDecimal.valueOf(100), 1);
+        when(accommodationRepository.findAccommodationDtos(0L,
+                Limit.of(CursorPageRequestDto.DEFAULT_LIMIT + 1))).thenReturn(
+                List.of(apartmentAccommodationDto, houseAccommodationDto));
+        when(accommodationRepository.findAmenityAssignmentsByAccommodationIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(new AmenityAssignment(1L, 1L),
+                        new AmenityAssignment(1L, 3L)));
 
-        List<AccommodationDto> actual = service.getAccommodations();
+        CursorPageDto<AccommodationDto> actual =
+                service.getAccommodations(CursorPageRequestDto.firstPage());
 
         assertNotNull(actual);
-        assertEquals(2, actual.size());
-        assertEquals(1L, actual.get(0).id());
-        assertEquals(2L, actual.get(1).id());
-        verify(accommodationRepository).findAll();
-        verify(accommodationMapper).toDto(apartmentAccommodation);
-        verify(accommodationMapper).toDto(houseAccommodation);
+        assertEquals(2, actual.content().size());
+        assertEquals(1L, actual.content().get(0).id());
+        assertEquals(List.of(1L, 3L), actual.content().get(0).amenityIds());
+        assertEquals(2L, actual.content().get(1).id());
+        assertEquals(List.of(), actual.content().get(1).amenityIds());
+        verify(accommodationRepository, never()).findAll();
+        verifyNoInteractions(accommodationMapper);
     }
 
     @Test
@@ -206,7 +253,7 @@ class AccommodationServiceTest {
     void updateAccommodation_ReturnsAccommodationDto() {
         Accommodation entity = new Accommodation()
                 .setId(1L).setType(Type.APARTMENT).setSize("Studio")
-                .setAmenities(new ArrayList<>());
+                .setAmenities(new HashSet<>());
 
         when(accommodationRepository.findById(1L)).thenReturn(Optional.of(entity));
 
@@ -237,6 +284,25 @@ class AccommodationServiceTest {
         verify(accommodationMapper).toDto(entity);
     }
 
+    @Test
+    void updateAccommodation_ChangedAmenities_TouchesOnlyDelta() {
+        Amenity amenity1 = new Amenity().setId(1L);
+        Amenity amenity2 = new Amenity().setId(2L);
+        Amenity amenity3 = new Amenity().setId(3L);
+        Accommodation entity = new Accommodation()
+                .setId(1L).setType(Type.APARTMENT).setSize("Studio")
+                .setAmenities(new HashSet<>(Set.of(amenity1, amenity2)));
+        when(accommodationRepository.findById(1L)).thenReturn(Optional.of(entity));
+        when(accommodationMapper.mapIdToAmenities(3L)).thenReturn(amenity3);
+
+        service.updateAccommodation(1L,
+                new AccommodationUpdateRequestDto(List.of(2L, 3L), null, null));
+
+        assertEquals(Set.of(amenity2, amenity3), entity.getAmenities());
+        verify(accommodationMapper, times(1)).mapIdToAmenities(3L);
+        verify(accommodationMapper, never()).mapIdToAmenities(2L);
+    }
+
     @Test
     void deleteAccommodation_DeletesById() {
         when(accommodationRepository.findById(2L)).thenReturn(Optional.of(new Accommodation().setId(2L)));
@@ -246,4 +312,141 @@ class AccommodationServiceTest {
         verify(accommodationRepository).findById(2L);
         verify(accommodationRepository).deleteById(2L);
     }
+
+    @Test
+    void getAvailability_ReservedNight_ReturnsUnavailable() {
+        LocalDate from = LocalDate.now().plusDays(5);
+        LocalDate to = from.plusDays(3);
+        BitSet reservedNights = new BitSet();
+        reservedNights.set(1);
+        when(accommodationRepository.findById(1L))
+                .thenReturn(Optional.of(new Accommodation().setId(1L)));
+        when(availabilityCalendar.horizonStart()).thenReturn(LocalDate.now());
+        when(availabilityCalendar.horizonEnd()).thenReturn(LocalDate.now().plusDays(365));
+        when(availabilityCalendar.reservedNights(1L, from, to)).thenReturn(reservedNights);
+
+        AvailabilityDto actual = service.getAvailability(1L, from, to);
+
+        assertFalse(actual.available());
+        assertEquals(List.of(from.plusDays(1)), actual.reservedNights());
+    }
+
+    @Test
+    void getAvailability_BeyondHorizon_ThrowsException() {
+        when(accommodationRepository.findById(1L))
+                .thenReturn(Optional.of(new Accommodation().setId(1L)));
+        when(availabilityCalendar.horizonStart()).thenReturn(LocalDate.now());
+        when(availabilityCalendar.horizonEnd()).thenReturn(LocalDate.now().plusDays(365));
+
+        assertThrows(AccommodationException.class, () -> service.getAvailability(1L,
+                LocalDate.now().plusDays(360), LocalDate.now().plusDays(370)));
+        verify(availabilityCalendar, never()).reservedNights(any(), any(), any());
+    }
+
+    @Test
+    void getMonthAvailability_MarksPastAndReservedDaysAsBusy() {
+        LocalDate today = LocalDate.of(2027, 3, 30);
+        YearMonth month = YearMonth.of(2027, 3);
+        BitSet reservedNights = new BitSet();
+        reservedNights.set(1);
+        when(accommodationRepository.findById(1L))
+                .thenReturn(Optional.of(new Accommodation().setId(1L)));
+        when(availabilityCalendar.horizonStart()).thenReturn(today);
+        when(availabilityCalendar.horizonEnd()).thenReturn(today.plusDays(365));
+        when(availabilityCalendar.reservedNights(1L, today, LocalDate.of(2027, 4, 1)))
+                .thenReturn(reservedNights);
+
+        MonthAvailabilityDto actual = service.getMonthAvailability(1L, month);
+
+        assertEquals(31, actual.days().size());
+        assertFalse(actual.days().get(28).available());
+        assertTrue(actual.days().get(29).available());
+        assertFalse(actual.days().get(30).available());
+    }
+
+    @Test
+    void searchAccommodations_LoadsOnlyIndexMatches() {
+        AccommodationSearchParametersDto parameters = new AccommodationSearchParametersDto(
+                Type.APARTMENT, null, null, List.of(1L), null, null, null, null, null);
+        BitSet matches = new BitSet();
+        matches.set(1);
+        matches.set(3);
+        Accommodation first = new Accommodation().setId(1L);
+        Accommodation third = new Accommodation().setId(3L);
+        AccommodationFacetsDto facets = new AccommodationFacetsDto(
+                Map.of(Type.APARTMENT, 2), Map.of(), Map.of(), Map.of(1L, 2));
+        when(accommodationSearchIndex.search(parameters)).thenReturn(matches);
+        when(accommodationRepository.findAllByIdInOrderByIdAsc(List.of(1L, 3L)))
+                .thenReturn(List.of(first, third));
+        when(accommodationSearchIndex.facets(matches)).thenReturn(facets);
+        when(accommodationMapper.toDto(first)).thenReturn(new AccommodationDto(
+                1L, Type.APARTMENT, 1L, "Studio", List.of(1L), BigDecimal.TEN, 1));
+        when(accommodationMapper.toDto(third)).thenReturn(new AccommodationDto(
+                3L, Type.APARTMENT, 2L, "Loft", List.of(1L), BigDecimal.TEN, 1));
+
+        AccommodationSearchResultDto actual = service.searchAccommodations(parameters,
+                CursorPageRequestDto.firstPage());
+
+        assertEquals(2, actual.total());
+        assertEquals(1L, actual.accommodations().get(0).id());
+        assertNull(actual.nextPageToken());
+        assertEquals(facets, actual.facets());
+        verify(accommodationRepository, never()).findAll();
+    }
+
+    @Test
+    void searchAccommodations_PageAfterToken_LoadsOnlyRequestedPage() {
+        AccommodationSearchParametersDto parameters = new AccommodationSearchParametersDto(
+                null, null, null, null, null, null, null, null, null);
+        BitSet matches = new BitSet();
+        matches.set(1, 6);
+        Accommodation second = new Accommodation().setId(2L);
+        AccommodationFacetsDto facets = new AccommodationFacetsDto(
+                Map.of(Type.APARTMENT, 5), Map.of(), Map.of(), Map.of());
+        when(accommodationSearchIndex.search(parameters)).thenReturn(matches);
+        when(accommodationRepository.findAllByIdInOrderByIdAsc(List.of(2L)))
+                .thenReturn(List.of(second));
+        when(accommodationSearchIndex.facets(matches)).thenReturn(facets);
+        when(accommodationMapper.toDto(second)).thenReturn(new AccommodationDto(
+                2L, Type.APARTMENT, 1L, "Studio", List.of(), BigDecimal.TEN, 1));
+
+        AccommodationSearchResultDto actual = service.searchAccommodations(parameters,
+                new CursorPageRequestDto(CursorPageRequestDto.encode(1L), 1));
+
+        assertEquals(5, actual.total());
+        assertEquals(1, actual.accommodations().size());
+        assertEquals(2L, actual.accommodations().get(0).id());
+        assertEquals(CursorPageRequestDto.encode(2L), actual.nextPageToken());
+        assertEquals(facets, actual.facets());
+    }
+
+    @Test
+    void searchAccommodations_IndexedIdNoLongerInDatabase_KeepsNextPage() {
+        AccommodationSearchParametersDto parameters = new AccommodationSearchParametersDto(
+                null, null, null, null, null, null, null, null, null);
+        BitSet matches = new BitSet();
+        matches.set(1, 4);
+        Accommodation first = new Accommodation().setId(1L);
+        when(accommodationSearchIndex.search(parameters)).thenReturn(matches);
+        when(accommodationRepository.findAllByIdInOrderByIdAsc(List.of(1L, 2L)))
+                .thenReturn(List.of(first));
+        when(accommodationMapper.toDto(first)).thenReturn(new AccommodationDto(
+                1L, Type.APARTMENT, 1L, "Studio", List.of(), BigDecimal.TEN, 1));
+
+        AccommodationSearchResultDto actual = service.searchAccommodations(parameters,
+                new CursorPageRequestDto(null, 2));
+
+        assertEquals(1, actual.accommodations().size());
+        assertEquals(CursorPageRequestDto.encode(2L), actual.nextPageToken());
+    }
+
+    @Test
+    void searchAccommodations_OnlyCheckInDate_ThrowsException() {
+        AccommodationSearchParametersDto parameters = new AccommodationSearchParametersDto(
+                null, null, null, null, null, null, null, LocalDate.now(), null);
+
+        assertThrows(AccommodationException.class,
+                () -> service.searchAccommodations(parameters, CursorPageRequestDto.firstPage()));
+        verifyNoInteractions(accommodationSearchIndex);
+    }
 }
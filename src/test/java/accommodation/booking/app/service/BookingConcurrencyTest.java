@@ -0,0 +1,106 @@
+package accommodation.booking.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doNothing;
+
+import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.exception.BookingException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.lock.StripedAccommodationLock;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+@SpringBootTest
+class BookingConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final String ADMIN_EMAIL = "admin@booking.app";
+    private static final CreateBookingRequestDto REQUEST = new CreateBookingRequestDto(
+            LocalDate.of(2031, 5, 1), LocalDate.of(2031, 5, 5), 2L);
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoSpyBean
+    private StripedAccommodationLock accommodationLock;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM bookings WHERE id > 3");
+        bookingIntervalIndex.rebuild();
+    }
+
+    @Test
+    void createBooking_ConcurrentRequestsForSameDates_OnlyOneSucceeds() throws Exception {
+        assertSingleBooking(createConcurrently());
+    }
+
+    @Test
+    void createBooking_WithoutInProcessLock_DatabaseGuardPreventsDoubleBooking()
+            throws Exception {
+        doNothing().when(accommodationLock).lockUntilTransactionEnds(anyLong());
+
+        assertSingleBooking(createConcurrently());
+    }
+
+    private List<Throwable> createConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return bookingService.createBooking(REQUEST, ADMIN_EMAIL);
+                }));
+            }
+            start.countDown();
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertSingleBooking(List<Throwable> failures) {
+        assertEquals(THREADS - 1, failures.size());
+        failures.forEach(failure -> assertInstanceOf(BookingException.class, failure));
+        Integer bookings = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM bookings
+                 WHERE accommodation_id = ?
+                   AND check_in_date < ?
+                   AND check_out_date > ?
+                   AND is_deleted = false
+                """, Integer.class, REQUEST.accommodationId(), REQUEST.checkOutDate(),
+                REQUEST.checkInDate());
+        assertEquals(1, bookings);
+    }
+}
@@ -0,0 +1,48 @@
+package accommodation.booking.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import accommodation.booking.app.deadline.BookingDeadlineQueue;
+import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import java.time.LocalDate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@SpringBootTest
+class BookingDeadlineSchedulingTest {
+    private static final String ADMIN_EMAIL = "admin@booking.app";
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingDeadlineQueue bookingDeadlineQueue;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private NotificationService notificationService;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DELETE FROM bookings WHERE id > 3");
+        bookingIntervalIndex.rebuild();
+    }
+
+    @Test
+    void createBooking_NewPendingBooking_SchedulesCheckOutAndUnpaidHold() {
+        int before = bookingDeadlineQueue.size();
+
+        bookingService.createBooking(new CreateBookingRequestDto(LocalDate.of(2032, 6, 1),
+                LocalDate.of(2032, 6, 4), 3L), ADMIN_EMAIL);
+
+        assertEquals(before + 2, bookingDeadlineQueue.size());
+    }
+}
@@ -0,0 +1,161 @@
+package accommodation.booking.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.dto.booking.ExpiringBookingDto;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.BookingRepository;
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class BookingExpirationProcessorTest {
+    private static final LocalDate TODAY = LocalDate.of(2027, 3, 3);
+    private static final EnumSet<Status> ACTIVE = EnumSet.of(Status.PENDING, Status.CONFIRMED);
+    private static final List<String> ACTIVE_NAMES = List.of("PENDING", "CONFIRMED");
+
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private PendingBookingCounter pendingBookingCounter;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private BookingExpirationProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new BookingExpirationProcessor(bookingRepository, notificationService,
+                bookingIntervalIndex, pendingBookingCounter, transactionManager, meterRegistry, 2);
+    }
+
+    @Test
+    void expire_ProcessesBookingsInIdOrderedBatches() {
+        ExpiringBookingDto first = booking(1L);
+        ExpiringBookingDto second = booking(2L);
+        ExpiringBookingDto third = booking(5L);
+        when(bookingRepository.findExpiringBookings(0L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of(first, second));
+        when(bookingRepository.findExpiringBookings(2L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of(third));
+        when(bookingRepository.lockActiveIds(List.of(1L, 2L), ACTIVE_NAMES))
+                .thenReturn(List.of(1L, 2L));
+        when(bookingRepository.lockActiveIds(List.of(5L), ACTIVE_NAMES))
+                .thenReturn(List.of(5L));
+        when(bookingRepository.expireBookings(List.of(1L, 2L), ACTIVE, Status.EXPIRED))
+                .thenReturn(2);
+        when(bookingRepository.expireBookings(List.of(5L), ACTIVE, Status.EXPIRED))
+                .thenReturn(1);
+
+        int actual = processor.expire(TODAY);
+
+        assertEquals(3, actual);
+        assertEquals(3, meterRegistry.get("booking.expiration.rows").counter().count());
+        assertEquals(2, meterRegistry.get("booking.expiration.batch").timer().count());
+        verify(bookingIntervalIndex).remove(10L, 5L);
+        verify(notificationService, never()).telegramSendMessage("No expired bookings today!");
+    }
+
+    @Test
+    void expire_RowLockedOrChangedConcurrently_ExpiresAndNotifiesOnlyLockedRows() {
+        when(bookingRepository.findExpiringBookings(0L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of(booking(1L), booking(2L)));
+        when(bookingRepository.lockActiveIds(List.of(1L, 2L), ACTIVE_NAMES))
+                .thenReturn(List.of(2L));
+        when(bookingRepository.expireBookings(List.of(2L), ACTIVE, Status.EXPIRED))
+                .thenReturn(1);
+        when(bookingRepository.findExpiringBookings(2L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of());
+
+        int actual = processor.expire(TODAY);
+
+        assertEquals(1, actual);
+        verify(bookingIntervalIndex, never()).remove(eq(10L), eq(1L));
+        verify(bookingIntervalIndex).remove(10L, 2L);
+    }
+
+    @Test
+    void expire_AllRowsLockedOrChanged_ExpiresNothing() {
+        when(bookingRepository.findExpiringBookings(0L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of(booking(1L)));
+        when(bookingRepository.lockActiveIds(List.of(1L), ACTIVE_NAMES))
+                .thenReturn(List.of());
+
+        int actual = processor.expire(TODAY);
+
+        assertEquals(0, actual);
+        verify(bookingRepository, never()).expireBookings(any(), any(), any());
+        verify(notificationService).telegramSendMessage("No expired bookings today!");
+    }
+
+    @Test
+    void expire_NothingToExpire_SendsSummary() {
+        when(bookingRepository.findExpiringBookings(0L, TODAY, ACTIVE, 0, 1, Limit.of(2)))
+                .thenReturn(List.of());
+
+        processor.expire(TODAY);
+
+        verify(notificationService).telegramSendMessage(anyString());
+        verify(notificationService).telegramSendMessage("No expired bookings today!");
+    }
+
+    @Test
+    void expireUnpaidHold_HoldElapsed_ReleasesBooking() {
+        LocalDateTime createdBefore = LocalDateTime.of(2027, 3, 3, 10, 0);
+        when(bookingRepository.expireUnpaidHold(7L, createdBefore, Status.PENDING,
+                Status.EXPIRED)).thenReturn(1);
+        when(bookingRepository.findExpiringBookingById(7L)).thenReturn(Optional.of(booking(7L)));
+
+        assertTrue(processor.expireUnpaidHold(7L, createdBefore));
+
+        verify(bookingIntervalIndex).remove(10L, 7L);
+        verify(pendingBookingCounter).invalidate(4L);
+        assertEquals(1, meterRegistry.get("booking.expiration.rows").counter().count());
+    }
+
+    @Test
+    void expireCheckedOut_BookingNoLongerDue_DoesNothing() {
+        when(bookingRepository.expireCheckedOutBooking(7L, TODAY, ACTIVE, Status.EXPIRED))
+                .thenReturn(0);
+
+        assertFalse(processor.expireCheckedOut(7L, TODAY));
+
+        verify(bookingIntervalIndex, never()).remove(eq(10L), eq(7L));
+        verify(notificationService, never()).telegramSendMessage(anyString());
+    }
+
+    private ExpiringBookingDto booking(Long id) {
+        return new ExpiringBookingDto(id, 10L, 4L, "user@test.com", TODAY.minusDays(3),
+                TODAY.minusDays(1));
+    }
+}
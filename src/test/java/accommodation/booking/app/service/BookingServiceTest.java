@@ -2,6 +2,7 @@ package accommodation.booking.app.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
@@ -14,8 +15,14 @@ import static org.mockito.Mockito.when;
 import accommodation.booking.app.dto.booking.BookingDto;
 import accommodation.booking.app.dto.booking.BookingUpdateRequestDto;
 import accommodation.booking.app.dto.booking.CreateBookingRequestDto;
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
+import accommodation.booking.app.deadline.BookingDeadlineQueue;
 import accommodation.booking.app.exception.BookingException;
 import accommodation.booking.app.exception.EntityNotFoundException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.lock.StripedAccommodationLock;
 import accommodation.booking.app.mapper.BookingMapper;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Booking;
@@ -26,9 +33,11 @@ import accommodation.booking.app.model.Status;
 import accommodation.booking.app.model.User;
 import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.AccommodationRepository;
+import accommodation.booking.app.repository.BookingGuardRepository;
 import accommodation.booking.app.repository.BookingRepository;
 import accommodation.booking.app.repository.PaymentRepository;
 import accommodation.booking.app.repository.UserRepository;
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
 import accommodation.booking.app.service.impl.BookingServiceImpl;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -40,6 +49,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceTest {
@@ -56,11 +66,21 @@ class BookingServiceTest {
     @Mock
     private NotificationService notifier;
     @Mock
-    private NotificationService notificationService;
-    @Mock
     private AccommodationRepository accommodationRepository;
     @Mock
     private PaymentRepository paymentRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private StripedAccommodationLock accommodationLock;
+    @Mock
+    private BookingGuardRepository bookingGuardRepository;
+    @Mock
+    private BookingExpirationProcessor bookingExpirationProcessor;
+    @Mock
+    private BookingDeadlineQueue bookingDeadlineQueue;
+    @Mock
+    private PendingBookingCounter pendingBookingCounter;
 
     @Test
     void createBooking_SavesBookingAndReturnsDto() {
@@ -68,8 +88,7 @@ class BookingServiceTest {
         User user = new User().setId(3L).setEmail("james@google.com").setRole(customerRole);
 
         when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
-        when(bookingRepository.findByUserIdAndStatus(3L, Status.PENDING))
-                .thenReturn(List.of());
+        when(pendingBookingCounter.count(3L)).thenReturn(0L);
 
         Location location = new Location().setId(7L);
         Accommodation accommodation = new Accommodation()
@@ -93,12 +112,8 @@ class BookingServiceTest {
 
         when(bookingMapper.toEntity(request)).thenReturn(booking);
 
-        when(bookingRepository.findReservedAccommodations(
-                eq(5L),
-                eq(request.checkInDate()),
-                eq(request.checkOutDate()),
-                eq(EnumSet.of(Status.CANCELED, Status.EXPIRED))
-        )).thenReturn(List.of());
+        when(bookingIntervalIndex.isReserved(5L, request.checkInDate(), request.checkOutDate()))
+                .thenReturn(false);
 
         BookingDto bookingDto = new BookingDto(
                 99L,
@@ -116,7 +131,12 @@ class BookingServiceTest {
         assertEquals(99L, actual.id());
         assertEquals("PENDING", actual.status());
 
+        verify(accommodationLock).lockUntilTransactionEnds(5L);
+        verify(bookingGuardRepository).acquire(5L);
         verify(bookingRepository).save(booking);
+        verify(pendingBookingCounter).invalidate(3L);
+        verify(bookingIntervalIndex).register(booking);
+        verify(bookingDeadlineQueue).schedule(booking);
         verify(bookingMapper).toDto(booking);
     }
 
@@ -127,8 +147,7 @@ class BookingServiceTest {
         User user = new User().setId(2L).setEmail("jane@google.pl").setRole(customerRole);
         when(userRepository.findByEmail("jane@google.pl")).thenReturn(Optional.of(user));
 
-        when(bookingRepository.findByUserIdAndStatus(user.getId(), Status.PENDING))
-                .thenReturn(List.of(new Booking().setId(1L)));
+        when(pendingBookingCounter.count(user.getId())).thenReturn(1L);
 
         CreateBookingRequestDto request = new CreateBookingRequestDto(
                 LocalDate.now().plusDays(10),
@@ -150,8 +169,7 @@ class BookingServiceTest {
         User user = new User().setId(3L).setEmail("james@google.com").setRole(customerRole);
 
         when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
-        when(bookingRepository.findByUserIdAndStatus(3L, Status.PENDING))
-                .thenReturn(List.of());
+        when(pendingBookingCounter.count(3L)).thenReturn(0L);
 
         Location location = new Location().setId(7L);
         Accommodation accommodation = new Accommodation()
@@ -173,12 +191,8 @@ class BookingServiceTest {
 
         when(bookingMapper.toEntity(requestDto)).thenReturn(booking);
 
-        when(bookingRepository.findReservedAccommodations(
-                eq(5L),
-                eq(requestDto.checkInDate()),
-                eq(requestDto.checkOutDate()),
-                eq(EnumSet.of(Status.CANCELED, Status.EXPIRED))
-        )).thenReturn(List.of(new Booking().setId(1L)));
+        when(bookingIntervalIndex.isReserved(5L, requestDto.checkInDate(),
+                requestDto.checkOutDate())).thenReturn(true);
 
         assertThrows(BookingException.class,
                 () -> service.createBooking(requestDto, "james@google.com"));
@@ -188,47 +202,76 @@ class BookingServiceTest {
     }
 
     @Test
-    void getBookingsByUserIdAndStatus_WhenFound_ReturnsMappedDtos() {
-        Booking booking1 = new Booking().setId(1L);
-        Booking booking2 = new Booking().setId(2L);
-        when(bookingRepository.findByUserIdAndStatus(2L, Status.CONFIRMED))
-                .thenReturn(List.of(booking1, booking2));
+    void createBooking_WhenGuardedCheckFindsOverlap_ThrowsBookingException() {
+        Role adminRole = new Role().setRoleName(RoleName.ADMIN);
+        User user = new User().setId(1L).setEmail("admin@booking.app").setRole(adminRole);
+        when(userRepository.findByEmail("admin@booking.app")).thenReturn(Optional.of(user));
+        when(accommodationRepository.findById(5L))
+                .thenReturn(Optional.of(new Accommodation().setId(5L)));
 
-        BookingDto bookingDto1 = new BookingDto(1L, LocalDate.now().plusDays(1),
-                LocalDate.now().plusDays(2), 5L, 2L, "CONFIRMED");
-        BookingDto bookingDto2 = new BookingDto(2L, LocalDate.now().plusDays(3),
-                LocalDate.now().plusDays(4), 6L, 2L, "CONFIRMED");
-        when(bookingMapper.toDto(booking1)).thenReturn(bookingDto1);
-        when(bookingMapper.toDto(booking2)).thenReturn(bookingDto2);
+        CreateBookingRequestDto requestDto = new CreateBookingRequestDto(
+                LocalDate.now().plusDays(10),
+                LocalDate.now().plusDays(12),
+                5L
+        );
+        Booking booking = new Booking()
+                .setAccommodation(new Accommodation().setId(5L))
+                .setCheckInDate(requestDto.checkInDate())
+                .setCheckOutDate(requestDto.checkOutDate());
+        when(bookingMapper.toEntity(requestDto)).thenReturn(booking);
+        when(bookingRepository.findOverlappingBookingIdsForShare(eq(5L),
+                eq(requestDto.checkInDate()), eq(requestDto.checkOutDate()), any()))
+                .thenReturn(List.of(1L));
 
-        List<BookingDto> actual = service.getBookingsByUserIdAndStatus(2L, "CONFIRMED");
+        assertThrows(BookingException.class,
+                () -> service.createBooking(requestDto, "admin@booking.app"));
 
-        assertEquals(2, actual.size());
-        assertEquals(1L, actual.get(0).id());
-        assertEquals(2L, actual.get(1).id());
-        verify(bookingMapper).toDto(booking1);
-        verify(bookingMapper).toDto(booking2);
+        verify(accommodationLock).lockUntilTransactionEnds(5L);
+        verify(bookingGuardRepository).acquire(5L);
+        verify(bookingRepository, never()).save(any());
     }
 
     @Test
-    void getUserBookings_ReturnsMappedDtos() {
+    void getBookingsByUserIdAndStatus_WhenFound_ReturnsProjectedDtos() {
+        BookingDto bookingDto1 = new BookingDto(1L, LocalDate.now().plusDays(1),
+                LocalDate.now().plusDays(2), 5L, 2L, Status.CONFIRMED);
+        BookingDto bookingDto2 = new BookingDto(2L, LocalDate.now().plusDays(3),
+                LocalDate.now().plusDays(4), 6L, 2L, Status.CONFIRMED);
+        when(bookingRepository.findBookingDtosByUserIdAndStatus(2L, Status.CONFIRMED, 0L,
+                Limit.of(CursorPageRequestDto.DEFAULT_LIMIT + 1)))
+                .thenReturn(List.of(bookingDto1, bookingDto2));
+
+        CursorPageDto<BookingDto> actual = service.getBookingsByUserIdAndStatus(2L, "CONFIRMED",
+                CursorPageRequestDto.firstPage());
+
+        assertEquals(2, actual.content().size());
+        assertEquals(1L, actual.content().get(0).id());
+        assertEquals(2L, actual.content().get(1).id());
+        assertEquals("CONFIRMED", actual.content().get(0).status());
+        assertNull(actual.nextPageToken());
+        verifyNoInteractions(bookingMapper);
+    }
+
+    @Test
+    void getUserBookings_ReturnsProjectedDtos() {
         Role customerRole = new Role().setRoleName(RoleName.CUSTOMER);
         User user = new User().setId(3L).setEmail("james@google.com").setRole(customerRole);
 
         when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
 
-        Booking booking = new Booking().setId(1L);
-        when(bookingRepository.findByUserId(3L)).thenReturn(List.of(booking));
-
         BookingDto bookingDto = new BookingDto(1L, LocalDate.now().plusDays(1),
-                LocalDate.now().plusDays(2), 5L, 4L, "PENDING");
-        when(bookingMapper.toDto(booking)).thenReturn(bookingDto);
+                LocalDate.now().plusDays(2), 5L, 3L, "PENDING");
+        when(bookingRepository.findBookingDtosByUserId(3L, 0L, Limit.of(2)))
+                .thenReturn(List.of(bookingDto, new BookingDto(2L, LocalDate.now().plusDays(3),
+                        LocalDate.now().plusDays(4), 5L, 3L, "PENDING")));
 
-        List<BookingDto> actual = service.getUserBookings("james@google.com");
+        CursorPageDto<BookingDto> actual = service.getUserBookings("james@google.com",
+                new CursorPageRequestDto(null, 1));
 
-        assertEquals(1, actual.size());
-        assertEquals(1L, actual.get(0).id());
-        verify(bookingMapper).toDto(booking);
+        assertEquals(1, actual.content().size());
+        assertEquals(1L, actual.content().get(0).id());
+        assertEquals(CursorPageRequestDto.encode(1L), actual.nextPageToken());
+        verifyNoInteractions(bookingMapper);
     }
 
     @Test
@@ -329,35 +372,16 @@ class BookingServiceTest {
         service.deleteBooking(9L);
 
         verify(bookingRepository).delete(booking);
+        verify(pendingBookingCounter).invalidate(1L);
     }
 
     @Test
-    void expireOldBookings_ExpiresEachBooking() {
+    void expireOldBookings_DelegatesToExpirationProcessor() {
         LocalDate today = LocalDate.now();
-        Booking booking1 = new Booking()
-                .setId(1L)
-                .setAccommodation(new Accommodation().setId(10L))
-                .setUser(new User().setEmail("test1@test.com"))
-                .setCheckInDate(today.minusDays(2))
-                .setCheckOutDate(today.minusDays(1))
-                .setStatus(Status.PENDING);
-        Booking booking2 = new Booking()
-                .setId(2L)
-                .setAccommodation(new Accommodation().setId(11L))
-                .setUser(new User().setEmail("test2@test.com"))
-                .setCheckInDate(today.minusDays(5))
-                .setCheckOutDate(today.minusDays(1))
-                .setStatus(Status.CONFIRMED);
-
-        when(bookingRepository.findBookingsToExpire(today,
-                EnumSet.of(Status.PENDING, Status.CONFIRMED)))
-                .thenReturn(List.of(booking1, booking2));
 
         service.expireOldBookings(today);
 
-        assertEquals(Status.EXPIRED, booking1.getStatus());
-        assertEquals(Status.EXPIRED, booking2.getStatus());
-        verify(bookingRepository).save(booking1);
-        verify(bookingRepository).save(booking2);
+        verify(bookingExpirationProcessor).expire(today);
+        verify(bookingRepository, never()).save(any());
     }
 }
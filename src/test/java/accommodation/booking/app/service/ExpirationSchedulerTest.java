@@ -2,20 +2,48 @@ package accommodation.booking.app.service;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import accommodation.booking.app.lock.PartitionedLeaseRunner;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.service.impl.BookingExpirationProcessor;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BooleanSupplier;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 class ExpirationSchedulerTest {
+    private static final Duration LEASE_TTL = Duration.ofMinutes(10);
+
+    private final PartitionedLeaseRunner partitionedLeaseRunner =
+            mock(PartitionedLeaseRunner.class);
+    private final BookingExpirationProcessor bookingExpirationProcessor =
+            mock(BookingExpirationProcessor.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ExpirationScheduler scheduler = new ExpirationScheduler(
+            partitionedLeaseRunner, bookingExpirationProcessor, notificationService, 4, LEASE_TTL);
 
     @Test
-    void expireBookings_CallsBookingServiceWithTodayDate() {
-        BookingService bookingService = mock(BookingService.class);
-        ExpirationScheduler scheduler = new ExpirationScheduler(bookingService);
+    void expireBookings_CallsProcessorWithTodayDateForClaimedPartition() {
+        BooleanSupplier leaseHeld = () -> true;
+        when(partitionedLeaseRunner.run(eq("booking-expiration"), eq(4), eq(LEASE_TTL), any()))
+                .thenAnswer(invocation -> {
+                    PartitionedLeaseRunner.PartitionTask task = invocation.getArgument(3);
+                    task.run(1, leaseHeld);
+                    return List.of(1);
+                });
+        when(bookingExpirationProcessor.expire(any(), eq(1), eq(4), eq(leaseHeld)))
+                .thenReturn(2);
 
         LocalDate before = LocalDate.now();
 
@@ -24,10 +52,23 @@ class ExpirationSchedulerTest {
         LocalDate after = LocalDate.now();
 
         ArgumentCaptor<LocalDate> dateCaptor = ArgumentCaptor.forClass(LocalDate.class);
-        verify(bookingService, times(1)).expireOldBookings(dateCaptor.capture());
+        verify(bookingExpirationProcessor, times(1)).expire(dateCaptor.capture(), eq(1), eq(4),
+                eq(leaseHeld));
 
         LocalDate actual = dateCaptor.getValue();
         assertFalse(actual.isBefore(before), "Date passed to service must be >= date before call");
         assertTrue(!actual.isAfter(after), "Date passed to service must be <= date after call");
+        verify(notificationService, never()).telegramSendMessage(anyString());
+    }
+
+    @Test
+    void expireBookings_NoPartitionClaimed_DoesNothing() {
+        when(partitionedLeaseRunner.run(eq("booking-expiration"), eq(4), eq(LEASE_TTL), any()))
+                .thenReturn(List.of());
+
+        scheduler.expireBookings();
+
+        verify(bookingExpirationProcessor, never()).expire(any(), anyInt(), anyInt(), any());
+        verify(notificationService, never()).telegramSendMessage(anyString());
     }
 }
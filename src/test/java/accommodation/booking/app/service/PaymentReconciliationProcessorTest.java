@@ -0,0 +1,202 @@
+package accommodation.booking.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.exception.PaymentGatewayException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Payment;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.model.User;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.BookingGuardRepository;
+import accommodation.booking.app.repository.BookingRepository;
+import accommodation.booking.app.repository.PaymentRepository;
+import accommodation.booking.app.service.impl.PaymentReconciliationProcessor;
+import accommodation.booking.app.service.impl.PaymentStatusUpdater;
+import accommodation.booking.app.stripe.StripeGateway;
+import com.stripe.model.checkout.Session;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentReconciliationProcessorTest {
+    private static final Duration SESSION_TTL = Duration.ofHours(23);
+
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private PaymentStatusUpdater paymentStatusUpdater;
+    @Mock
+    private StripeGateway stripeGateway;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingGuardRepository bookingGuardRepository;
+    @Mock
+    private NotificationService notifier;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private PendingBookingCounter pendingBookingCounter;
+
+    private MeterRegistry meterRegistry;
+    private PaymentReconciliationProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new PaymentReconciliationProcessor(paymentRepository, paymentStatusUpdater,
+                stripeGateway, transactionManager, meterRegistry, 10, 2, SESSION_TTL);
+    }
+
+    @Test
+    void reconcile_SettlesPaidAndExpiredSessions() {
+        Payment paid = payment(1L, "cs_paid");
+        Payment expired = payment(2L, "cs_expired");
+        Payment open = payment(3L, "cs_open");
+        when(paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0, 1, Limit.of(10)))
+                .thenReturn(List.of(paid, expired, open));
+        when(stripeGateway.retrieveSession("cs_paid")).thenReturn(session("complete", "paid"));
+        when(stripeGateway.retrieveSession("cs_expired"))
+                .thenReturn(session("expired", "unpaid"));
+        when(stripeGateway.retrieveSession("cs_open")).thenReturn(session("open", "unpaid"));
+        when(paymentRepository.findByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(paid, expired, open));
+        when(paymentStatusUpdater.confirm(paid)).thenReturn(true);
+        when(paymentStatusUpdater.cancel(expired)).thenReturn(true);
+
+        int actual = processor.reconcile(0, 1, () -> true);
+
+        assertEquals(2, actual);
+        verify(paymentStatusUpdater, never()).confirm(open);
+        verify(paymentStatusUpdater, never()).cancel(open);
+        assertEquals(3, meterRegistry.get("payment.reconciliation.checked").counter().count());
+        assertEquals(1, meterRegistry.get("payment.reconciliation.updated")
+                .tag("outcome", "confirmed").counter().count());
+        assertEquals(1, meterRegistry.get("payment.reconciliation.updated")
+                .tag("outcome", "canceled").counter().count());
+    }
+
+    @Test
+    void reconcile_StripeFailure_LeavesPaymentPending() {
+        Payment payment = payment(1L, "cs_unknown");
+        when(paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0, 1, Limit.of(10)))
+                .thenReturn(List.of(payment));
+        when(stripeGateway.retrieveSession("cs_unknown"))
+                .thenThrow(new PaymentGatewayException("Stripe is unavailable", null));
+        when(paymentRepository.findByIdIn(List.of(1L))).thenReturn(List.of(payment));
+
+        int actual = processor.reconcile(0, 1, () -> true);
+
+        assertEquals(0, actual);
+        verify(paymentStatusUpdater, never()).cancel(any());
+        assertEquals(1, meterRegistry.get("payment.reconciliation.failed").counter().count());
+        assertEquals(1, meterRegistry.get("payment.reconciliation.lag.seconds").gauge().value(),
+                1);
+    }
+
+    @Test
+    void reconcile_AbandonedReservationWithoutSession_IsCanceled() {
+        Payment abandoned = payment(4L, null)
+                .setSessionExpiresAt(LocalDateTime.now().plus(SESSION_TTL).minusHours(2));
+        when(paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0, 1, Limit.of(10)))
+                .thenReturn(List.of(abandoned));
+        when(paymentRepository.findByIdIn(List.of(4L))).thenReturn(List.of(abandoned));
+        when(paymentStatusUpdater.cancel(abandoned)).thenReturn(true);
+
+        assertEquals(1, processor.reconcile(0, 1, () -> true));
+
+        verify(stripeGateway, never()).retrieveSession(any());
+    }
+
+    @Test
+    void reconcile_CompletedSessionOnCanceledPayment_MarksRefundRequired() {
+        Booking booking = booking(Status.CANCELED);
+        Payment pending = payment(5L, "cs_late").setBookingId(booking);
+        Payment canceled = payment(5L, "cs_late").setBookingId(booking)
+                .setStatus(Status.CANCELED);
+        when(paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0, 1, Limit.of(10)))
+                .thenReturn(List.of(pending));
+        when(stripeGateway.retrieveSession("cs_late")).thenReturn(session("complete", "paid"));
+        when(paymentRepository.findByIdIn(List.of(5L))).thenReturn(List.of(canceled));
+
+        assertEquals(1, processorWithUpdater().reconcile(0, 1, () -> true));
+
+        assertEquals(Status.REFUND_REQUIRED, canceled.getStatus());
+        assertEquals(Status.CANCELED, booking.getStatus());
+        verify(bookingIntervalIndex, never()).register(any());
+        assertEquals(1, meterRegistry.get("payment.reconciliation.updated")
+                .tag("outcome", "refund_required").counter().count());
+        assertEquals(0, meterRegistry.get("payment.reconciliation.updated")
+                .tag("outcome", "confirmed").counter().count());
+    }
+
+    @Test
+    void reconcile_CompletedSessionOnExpiredBooking_MarksRefundRequired() {
+        Booking booking = booking(Status.EXPIRED);
+        Payment payment = payment(6L, "cs_expired_hold").setBookingId(booking);
+        when(paymentRepository.findReconcilablePayments(0L, Status.PENDING, 0, 1, Limit.of(10)))
+                .thenReturn(List.of(payment));
+        when(stripeGateway.retrieveSession("cs_expired_hold"))
+                .thenReturn(session("complete", "paid"));
+        when(paymentRepository.findByIdIn(List.of(6L))).thenReturn(List.of(payment));
+
+        processorWithUpdater().reconcile(0, 1, () -> true);
+
+        assertEquals(Status.REFUND_REQUIRED, payment.getStatus());
+        assertEquals(Status.EXPIRED, booking.getStatus());
+        verify(bookingRepository, never()).save(any());
+        verify(notifier).telegramSendMessage(contains("refund"));
+    }
+
+    private PaymentReconciliationProcessor processorWithUpdater() {
+        PaymentStatusUpdater updater = new PaymentStatusUpdater(paymentRepository,
+                bookingRepository, bookingGuardRepository, notifier, bookingIntervalIndex,
+                pendingBookingCounter);
+        return new PaymentReconciliationProcessor(paymentRepository, updater, stripeGateway,
+                transactionManager, meterRegistry, 10, 2, SESSION_TTL);
+    }
+
+    private Booking booking(Status status) {
+        return new Booking()
+                .setId(1L)
+                .setStatus(status)
+                .setAccommodation(new Accommodation().setId(1L))
+                .setUser(new User().setId(2L));
+    }
+
+    private Payment payment(Long id, String sessionId) {
+        return new Payment()
+                .setId(id)
+                .setStatus(Status.PENDING)
+                .setSessionId(sessionId)
+                .setSessionExpiresAt(LocalDateTime.now().plus(SESSION_TTL).minusSeconds(1));
+    }
+
+    private Session session(String status, String paymentStatus) {
+        Session session = new Session();
+        session.setStatus(status);
+        session.setPaymentStatus(paymentStatus);
+        return session;
+    }
+}
@@ -3,17 +3,26 @@ package accommodation.booking.app.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import accommodation.booking.app.dto.pagination.CursorPageDto;
+import accommodation.booking.app.dto.pagination.CursorPageRequestDto;
 import accommodation.booking.app.dto.payment.CreatePaymentRequestDto;
 import accommodation.booking.app.dto.payment.PaymentDto;
 import accommodation.booking.app.dto.payment.PaymentResponseDto;
+import accommodation.booking.app.exception.PaymentException;
+import accommodation.booking.app.exception.PaymentGatewayException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
 import accommodation.booking.app.mapper.PaymentMapper;
 import accommodation.booking.app.model.Accommodation;
 import accommodation.booking.app.model.Booking;
@@ -22,24 +31,40 @@ import accommodation.booking.app.model.Role;
 import accommodation.booking.app.model.RoleName;
 import accommodation.booking.app.model.Status;
 import accommodation.booking.app.model.User;
-import accommodation.booking.app.notification.telegram.NotificationService;
 import accommodation.booking.app.repository.BookingRepository;
 import accommodation.booking.app.repository.PaymentRepository;
 import accommodation.booking.app.repository.UserRepository;
 import accommodation.booking.app.service.impl.PaymentServiceImpl;
+import accommodation.booking.app.service.impl.PaymentStatusUpdater;
+import accommodation.booking.app.stripe.CheckoutSessionCache;
+import accommodation.booking.app.stripe.StripeGateway;
+import com.stripe.exception.ApiConnectionException;
 import com.stripe.model.checkout.Session;
 import com.stripe.param.checkout.SessionCreateParams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @ExtendWith(MockitoExtension.class)
 class PaymentServiceTest {
@@ -56,36 +81,48 @@ class PaymentServiceTest {
     @Mock
     private PaymentMapper paymentMapper;
     @Mock
-    private NotificationService notifier;
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @Mock
+    private StripeGateway stripeGateway;
+    @Mock
+    private CheckoutSessionCache checkoutSessionCache;
+    @Mock
+    private PendingBookingCounter pendingBookingCounter;
+    @Mock
+    private PaymentStatusUpdater paymentStatusUpdater;
 
     @Test
-    void getAllPaymentsByUserId_ReturnsDtos() {
+    void getAllPaymentsByUserId_ReturnsProjectedDtos() {
         Role role = new Role().setRoleName(RoleName.CUSTOMER);
         User user = new User().setId(3L).setEmail("james@google.com").setRole(role);
 
         when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
 
-        Booking booking = new Booking().setId(1L);
-        Payment payment = new Payment().setId(10L).setBookingId(booking).setStatus(Status.PENDING);
-
-        when(paymentRepository.findAllByBookingId_User_Id(3L)).thenReturn(List.of(payment));
-
         PaymentDto dto = new PaymentDto(10L, 1L, "PENDING", BigDecimal.valueOf(10),
                 "cs_1", "http://test");
-        when(paymentMapper.toDto(payment)).thenReturn(dto);
+        when(paymentRepository.findPaymentDtosByUserId(3L, 5L,
+                Limit.of(CursorPageRequestDto.DEFAULT_LIMIT + 1))).thenReturn(List.of(dto));
 
-        List<PaymentDto> actual = service.getAllPaymentsByUserId(3L, "james@google.com");
+        CursorPageDto<PaymentDto> actual = service.getAllPaymentsByUserId(3L, "james@google.com",
+                new CursorPageRequestDto(CursorPageRequestDto.encode(5L), null));
 
-        assertEquals(1, actual.size());
-        assertEquals(10L, actual.getFirst().id());
-        verify(paymentRepository).findAllByBookingId_User_Id(3L);
-        verify(paymentMapper).toDto(payment);
+        assertEquals(1, actual.content().size());
+        assertEquals(10L, actual.content().getFirst().id());
+        verify(paymentRepository).findPaymentDtosByUserId(3L, 5L,
+                Limit.of(CursorPageRequestDto.DEFAULT_LIMIT + 1));
+        verifyNoInteractions(paymentMapper);
     }
 
     @Test
     void createPaymentSession_SessionCreate() {
         ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
         ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(23));
+        runTransactionsInline();
         Role customerRole = new Role().setRoleName(RoleName.CUSTOMER);
         User user = new User().setId(3L).setEmail("james@google.com").setRole(customerRole);
 
@@ -107,7 +144,8 @@ class PaymentServiceTest {
                 .setBookingId(booking)
                 .setStatus(Status.PENDING)
                 .setAmountToPay(BigDecimal.valueOf(40))
-                .setSessionId("cs_test_123");
+                .setSessionId("cs_test_123")
+                .setSessionExpiresAt(LocalDateTime.now().plusHours(23));
 
         when(paymentRepository.save(any(Payment.class))).thenReturn(savedPayment);
 
@@ -120,26 +158,118 @@ class PaymentServiceTest {
         when(stripeSession.getId()).thenReturn("cs_test_123");
         when(stripeSession.getUrl()).thenReturn("http://test.com");
 
-        try (MockedStatic<Session> mocked = mockStatic(Session.class)) {
-            mocked.when(() -> Session.create(any(SessionCreateParams.class)))
-                    .thenReturn(stripeSession);
+        when(stripeGateway.createSession(any(SessionCreateParams.class)))
+                .thenReturn(stripeSession);
+        when(paymentRepository.attachSession(eq(50L), eq("cs_test_123"), any()))
+                .thenReturn(1);
+
+        PaymentDto actual = service.createPaymentSession(
+                new CreatePaymentRequestDto(1L),
+                "james@google.com"
+        );
+
+        assertNotNull(actual);
+        assertEquals(50L, actual.id());
+        assertEquals("PENDING", actual.status());
+        assertEquals(1L, actual.bookingId());
+        verify(paymentRepository).save(any(Payment.class));
+        verify(paymentRepository).attachSession(eq(50L), eq("cs_test_123"), any());
+        verify(transactionTemplate, times(2)).execute(any());
+        assertEquals(1, meterRegistry.get("stripe.session.create")
+                .tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void createPaymentSession_WhenStripeFails_CancelsReservedPayment() {
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(23));
+        runTransactionsInline();
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Role customerRole = new Role().setRoleName(RoleName.CUSTOMER);
+        User user = new User().setId(3L).setEmail("james@google.com").setRole(customerRole);
+        when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
+        Accommodation accommodation = new Accommodation().setDailyRate(BigDecimal.valueOf(20)).setId(1L);
+        Booking booking = new Booking()
+                .setId(1L)
+                .setUser(user)
+                .setAccommodation(accommodation)
+                .setCheckInDate(LocalDate.now().plusDays(1))
+                .setCheckOutDate(LocalDate.now().plusDays(3))
+                .setStatus(Status.PENDING);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(paymentRepository.save(any(Payment.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        when(stripeGateway.createSession(any(SessionCreateParams.class)))
+                .thenThrow(new PaymentGatewayException("Stripe session.create failed",
+                        new ApiConnectionException("Stripe is unreachable")));
+
+        assertThrows(PaymentGatewayException.class, () -> service.createPaymentSession(
+                new CreatePaymentRequestDto(1L), "james@google.com"));
+
+        ArgumentCaptor<Payment> saved = ArgumentCaptor.forClass(Payment.class);
+        verify(paymentRepository, times(2)).save(saved.capture());
+        assertEquals(Status.CANCELED, saved.getValue().getStatus());
+        verify(paymentMapper, never()).toDto(any());
+        assertEquals(1, meterRegistry.get("stripe.session.create")
+                .tag("outcome", "error").timer().count());
+    }
 
-            PaymentDto actual = service.createPaymentSession(
-                    new CreatePaymentRequestDto(1L),
-                    "james@google.com"
-            );
+    @Test
+    void createPaymentSession_OpenSessionExists_ReusesItWithoutCallingStripe() {
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
+        runTransactionsInline();
+        Booking booking = payableBooking();
+        Payment open = new Payment()
+                .setId(50L)
+                .setBookingId(booking)
+                .setStatus(Status.PENDING)
+                .setSessionId("cs_open")
+                .setSessionExpiresAt(LocalDateTime.now().plusHours(20));
+        PaymentDto mapped = new PaymentDto(50L, 1L, "PENDING", BigDecimal.valueOf(40),
+                "cs_open", "http://test.com");
+        when(paymentRepository.findByBookingId_IdAndStatus(1L, Status.PENDING))
+                .thenReturn(Optional.of(open));
+        when(paymentMapper.toDto(open)).thenReturn(mapped);
+
+        PaymentDto actual = service.createPaymentSession(new CreatePaymentRequestDto(1L),
+                "james@google.com");
+
+        assertEquals("cs_open", actual.sessionId());
+        verify(checkoutSessionCache).put(1L, mapped, open.getSessionExpiresAt());
+        verify(paymentRepository, never()).save(any());
+        verify(stripeGateway, never()).createSession(any());
+    }
 
-            assertNotNull(actual);
-            assertEquals(50L, actual.id());
-            assertEquals("PENDING", actual.status());
-            assertEquals(1L, actual.bookingId());
-        }
+    @Test
+    void createPaymentSession_CachedSession_ReturnsItWithoutQueryingPayments() {
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
+        runTransactionsInline();
+        payableBooking();
+        PaymentDto cached = new PaymentDto(50L, 1L, "PENDING", BigDecimal.valueOf(40),
+                "cs_cached", "http://test.com");
+        when(checkoutSessionCache.get(1L, Duration.ofMinutes(10)))
+                .thenReturn(Optional.of(cached));
+
+        PaymentDto actual = service.createPaymentSession(new CreatePaymentRequestDto(1L),
+                "james@google.com");
+
+        assertEquals(cached, actual);
+        verify(paymentRepository, never()).findByBookingId_IdAndStatus(any(), any());
+        verify(stripeGateway, never()).createSession(any());
     }
 
     @Test
     void createPaymentSession_WhenStripeSecretKeyIsMissing_ThrowsException() {
         ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
         ReflectionTestUtils.setField(service, "stripeSecretKey", "");
+        runTransactionsInline();
         Role role = new Role().setRoleName(RoleName.CUSTOMER);
         User user = new User().setId(3L).setEmail("james@google.com").setRole(role);
 
@@ -163,14 +293,47 @@ class PaymentServiceTest {
     }
 
 
+    @Test
+    void createPaymentSession_PaymentCanceledMeanwhile_ThrowsWithoutOverwritingIt() {
+        ReflectionTestUtils.setField(service, "baseUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
+        ReflectionTestUtils.setField(service, "sessionTtl", Duration.ofHours(23));
+        runTransactionsInline();
+        Booking booking = payableBooking();
+        Payment reserved = new Payment()
+                .setId(51L)
+                .setBookingId(booking)
+                .setStatus(Status.PENDING)
+                .setAmountToPay(BigDecimal.valueOf(40))
+                .setSessionExpiresAt(LocalDateTime.now().plusHours(23));
+        when(paymentRepository.save(any(Payment.class))).thenReturn(reserved);
+        Session stripeSession = mock(Session.class);
+        when(stripeSession.getId()).thenReturn("cs_test_456");
+        when(stripeSession.getUrl()).thenReturn("http://test.com");
+        when(stripeGateway.createSession(any(SessionCreateParams.class)))
+                .thenReturn(stripeSession);
+
+        assertThrows(PaymentException.class, () -> service.createPaymentSession(
+                new CreatePaymentRequestDto(1L), "james@google.com"));
+
+        verify(paymentRepository).attachSession(eq(51L), eq("cs_test_456"), any());
+        verify(paymentRepository).save(any(Payment.class));
+        verify(checkoutSessionCache, never()).put(any(), any(), any());
+    }
+
     @Test
     void paymentSuccess_WhenStripeSaysPaid() {
         ReflectionTestUtils.setField(service, "stripeSecretKey", "sk_test");
-        Booking booking = new Booking().setId(1L).setStatus(Status.PENDING);
+        runTransactionsInline();
+        Booking booking = new Booking().setId(1L).setStatus(Status.PENDING)
+                .setUser(new User().setId(2L));
         Payment payment = new Payment().setId(10L).setSessionId("test_id1").setStatus(Status.PENDING).setBookingId(booking);
 
         when(paymentRepository.findBySessionId("test_id1")).thenReturn(Optional.of(payment));
-        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(paymentStatusUpdater.confirm(payment)).thenAnswer(invocation -> {
+            payment.setStatus(Status.CONFIRMED);
+            return true;
+        });
 
         accommodation.booking.app.dto.payment.PaymentResponseDto responseDto =
                 new accommodation.booking.app.dto.payment.PaymentResponseDto();
@@ -183,30 +346,30 @@ class PaymentServiceTest {
 
         when(stripeSession.getPaymentStatus()).thenReturn("paid");
 
-        try (MockedStatic<Session> mocked = mockStatic(Session.class)) {
-            mocked.when(() -> Session.retrieve("test_id1")).thenReturn(stripeSession);
+        when(stripeGateway.retrieveSession("test_id1")).thenReturn(stripeSession);
 
-            PaymentResponseDto actual = service.paymentSuccess("test_id1");
+        PaymentResponseDto actual = service.paymentSuccess("test_id1");
 
-            assertEquals(10L, actual.getPaymentId());
-            assertEquals("Payment completed", actual.getMessage());
-            verify(paymentRepository).save(payment);
-            verify(bookingRepository).save(booking);
-            verify(notifier).telegramSendMessage(anyString());
-        }
+        assertEquals(10L, actual.getPaymentId());
+        assertEquals("Payment completed", actual.getMessage());
+        verify(paymentStatusUpdater).confirm(payment);
     }
 
     @Test
     void paymentCancel_CancelsPaymentAndBooking() {
-        Booking booking = new Booking().setId(1L).setStatus(Status.PENDING);
+        Booking booking = new Booking().setId(1L).setStatus(Status.PENDING)
+                .setUser(new User().setId(2L));
         Payment payment = new Payment()
                 .setId(10L)
                 .setSessionId("sess_2")
                 .setStatus(Status.PENDING)
                 .setBookingId(booking);
 
+        runTransactionsInline();
         when(paymentRepository.findBySessionId("sess_2")).thenReturn(Optional.of(payment));
         when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(paymentRepository.updateStatus(10L, Status.PENDING, Status.CANCELED)).thenReturn(1);
+        when(bookingRepository.updateStatus(1L, Status.PENDING, Status.CANCELED)).thenReturn(1);
 
         accommodation.booking.app.dto.payment.PaymentResponseDto responseDto =
                 new accommodation.booking.app.dto.payment.PaymentResponseDto();
@@ -222,9 +385,77 @@ class PaymentServiceTest {
 
         assertEquals(Status.CANCELED, payment.getStatus());
         assertEquals(Status.CANCELED, booking.getStatus());
+        verify(pendingBookingCounter).invalidate(2L);
 
-        verify(paymentRepository).save(payment);
-        verify(bookingRepository).save(booking);
+        verify(paymentRepository, never()).save(any());
+        verify(bookingRepository, never()).save(any());
+        assertNotNull(actual.getMessage());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = Status.class, names = {"CANCELED", "REFUND_REQUIRED", "CONFIRMED"})
+    void paymentCancel_PaymentNotPending_ReturnsItUnchanged(Status paymentStatus) {
+        Booking booking = new Booking().setId(1L).setStatus(Status.CONFIRMED)
+                .setUser(new User().setId(2L));
+        Payment payment = new Payment().setId(10L).setSessionId("sess_2")
+                .setStatus(paymentStatus).setBookingId(booking);
+        runTransactionsInline();
+        when(paymentRepository.findBySessionId("sess_2")).thenReturn(Optional.of(payment));
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(paymentMapper.toResponseDto(payment)).thenReturn(new PaymentResponseDto());
+
+        PaymentResponseDto actual = service.paymentCancel("sess_2");
+
+        assertEquals(paymentStatus, payment.getStatus());
+        assertEquals(Status.CONFIRMED, booking.getStatus());
         assertNotNull(actual.getMessage());
+        verify(paymentRepository, never()).updateStatus(any(), any(), any());
+        verify(bookingRepository, never()).updateStatus(any(), any(), any());
+        verify(pendingBookingCounter, never()).invalidate(any());
+    }
+
+    @Test
+    void paymentCancel_BookingConfirmedMeanwhile_RollsBackAndKeepsPayment() {
+        Booking booking = new Booking().setId(1L).setStatus(Status.PENDING)
+                .setUser(new User().setId(2L));
+        Payment payment = new Payment().setId(10L).setSessionId("sess_2")
+                .setStatus(Status.PENDING).setBookingId(booking);
+        SimpleTransactionStatus transaction = new SimpleTransactionStatus();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(transaction));
+        when(paymentRepository.findBySessionId("sess_2")).thenReturn(Optional.of(payment));
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        when(paymentRepository.updateStatus(10L, Status.PENDING, Status.CANCELED)).thenReturn(1);
+        when(bookingRepository.updateStatus(1L, Status.PENDING, Status.CANCELED)).thenReturn(0);
+        when(paymentMapper.toResponseDto(payment)).thenReturn(new PaymentResponseDto());
+
+        PaymentResponseDto actual = service.paymentCancel("sess_2");
+
+        assertTrue(transaction.isRollbackOnly());
+        assertEquals(Status.PENDING, payment.getStatus());
+        assertEquals(Status.PENDING, booking.getStatus());
+        assertNotNull(actual.getMessage());
+        verify(pendingBookingCounter, never()).invalidate(any());
+    }
+
+    private Booking payableBooking() {
+        User user = new User().setId(3L).setEmail("james@google.com")
+                .setRole(new Role().setRoleName(RoleName.CUSTOMER));
+        when(userRepository.findByEmail("james@google.com")).thenReturn(Optional.of(user));
+        Booking booking = new Booking()
+                .setId(1L)
+                .setUser(user)
+                .setAccommodation(new Accommodation().setDailyRate(BigDecimal.valueOf(20))
+                        .setId(1L))
+                .setCheckInDate(LocalDate.now().plusDays(1))
+                .setCheckOutDate(LocalDate.now().plusDays(3))
+                .setStatus(Status.PENDING);
+        when(bookingRepository.findById(1L)).thenReturn(Optional.of(booking));
+        return booking;
+    }
+
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
     }
 }
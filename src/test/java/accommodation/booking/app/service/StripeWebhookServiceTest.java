@@ -0,0 +1,337 @@
+package accommodation.booking.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import accommodation.booking.app.exception.WebhookSignatureException;
+import accommodation.booking.app.index.BookingIntervalIndex;
+import accommodation.booking.app.index.PendingBookingCounter;
+import accommodation.booking.app.model.Accommodation;
+import accommodation.booking.app.model.Booking;
+import accommodation.booking.app.model.Payment;
+import accommodation.booking.app.model.Status;
+import accommodation.booking.app.model.StripeEvent;
+import accommodation.booking.app.model.User;
+import accommodation.booking.app.notification.telegram.NotificationService;
+import accommodation.booking.app.repository.BookingGuardRepository;
+import accommodation.booking.app.repository.BookingRepository;
+import accommodation.booking.app.repository.PaymentRepository;
+import accommodation.booking.app.repository.StripeEventRepository;
+import accommodation.booking.app.service.impl.PaymentStatusUpdater;
+import accommodation.booking.app.service.impl.StripeWebhookServiceImpl;
+import com.stripe.Stripe;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookServiceTest {
+    private static final String SECRET = "whsec_test";
+
+    @Mock
+    private StripeEventRepository stripeEventRepository;
+    @Mock
+    private PaymentRepository paymentRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingGuardRepository bookingGuardRepository;
+    @Mock
+    private NotificationService notifier;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private PendingBookingCounter pendingBookingCounter;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StripeWebhookService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StripeWebhookServiceImpl(stripeEventRepository, paymentRepository,
+                new PaymentStatusUpdater(paymentRepository, bookingRepository,
+                        bookingGuardRepository, notifier, bookingIntervalIndex,
+                        pendingBookingCounter), transactionManager,
+                SECRET, 100, 3, Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @Test
+    void receive_SignedCompletedEvent_StoresEventInInbox() throws Exception {
+        String payload = event("evt_1", "checkout.session.completed", "cs_1", "paid");
+        when(stripeEventRepository.insertIfAbsent("evt_1", "checkout.session.completed", "cs_1",
+                "paid")).thenReturn(1);
+
+        service.receive(payload, signature(payload, SECRET));
+
+        verify(stripeEventRepository).insertIfAbsent("evt_1", "checkout.session.completed",
+                "cs_1", "paid");
+        verifyNoInteractions(paymentRepository, bookingRepository);
+    }
+
+    @Test
+    void receive_InvalidSignature_RejectsEvent() throws Exception {
+        String payload = event("evt_2", "checkout.session.completed", "cs_2", "paid");
+
+        assertThrows(WebhookSignatureException.class,
+                () -> service.receive(payload, signature(payload, "whsec_other")));
+
+        verifyNoInteractions(stripeEventRepository);
+    }
+
+    @Test
+    void receive_UnhandledEventType_IsAcknowledgedWithoutStoring() throws Exception {
+        String payload = event("evt_3", "checkout.session.async_payment_pending", "cs_3",
+                "unpaid");
+
+        service.receive(payload, signature(payload, SECRET));
+
+        verifyNoInteractions(stripeEventRepository);
+    }
+
+    @Test
+    void applyPendingEvents_CompletedSession_ConfirmsPaymentAndBooking() {
+        Booking booking = booking();
+        Payment payment = payment("cs_1", booking);
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_1"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_1"))).thenReturn(List.of(
+                        stripeEvent("evt_1", "checkout.session.completed", "cs_1", "paid")));
+        when(paymentRepository.findBySessionId("cs_1")).thenReturn(Optional.of(payment));
+
+        int actual = service.applyPendingEvents();
+
+        assertEquals(1, actual);
+        verify(stripeEventRepository).claim(List.of("evt_1"), Duration.ofMinutes(1).toMillis());
+        assertEquals(Status.CONFIRMED, payment.getStatus());
+        assertEquals(Status.CONFIRMED, booking.getStatus());
+        verify(notifier).telegramSendMessage(anyString());
+        verify(stripeEventRepository).markProcessed(List.of("evt_1"));
+    }
+
+    @Test
+    void applyPendingEvents_CompletedSessionOnCanceledPayment_MarksRefundRequired() {
+        Booking booking = booking().setStatus(Status.CANCELED);
+        Payment payment = payment("cs_2", booking).setStatus(Status.CANCELED);
+        givenEvent("evt_2", "checkout.session.completed", "cs_2", "paid", payment);
+
+        service.applyPendingEvents();
+
+        assertEquals(Status.REFUND_REQUIRED, payment.getStatus());
+        assertEquals(Status.CANCELED, booking.getStatus());
+        verify(bookingRepository, never()).save(any());
+        verify(bookingIntervalIndex, never()).register(any());
+        verify(notifier).telegramSendMessage(contains("refund"));
+    }
+
+    @Test
+    void applyPendingEvents_CompletedSessionOnExpiredBooking_MarksRefundRequired() {
+        Booking booking = booking().setStatus(Status.EXPIRED);
+        Payment payment = payment("cs_3", booking);
+        givenEvent("evt_3", "checkout.session.completed", "cs_3", "paid", payment);
+
+        service.applyPendingEvents();
+
+        assertEquals(Status.REFUND_REQUIRED, payment.getStatus());
+        assertEquals(Status.EXPIRED, booking.getStatus());
+        verify(bookingIntervalIndex, never()).register(any());
+        verify(pendingBookingCounter, never()).invalidate(any());
+    }
+
+    @Test
+    void applyPendingEvents_CompletedSessionOverlappingNewerBooking_MarksRefundRequired() {
+        Booking booking = booking();
+        Payment payment = payment("cs_5", booking);
+        givenEvent("evt_5", "checkout.session.completed", "cs_5", "paid", payment);
+        when(bookingRepository.findOtherOverlappingBookingIdsForShare(eq(1L), eq(1L), any(),
+                any(), any())).thenReturn(List.of(7L));
+
+        service.applyPendingEvents();
+
+        assertEquals(Status.REFUND_REQUIRED, payment.getStatus());
+        assertEquals(Status.PENDING, booking.getStatus());
+        verify(bookingGuardRepository).acquire(1L);
+        verify(bookingIntervalIndex, never()).register(any());
+    }
+
+    @Test
+    void applyPendingEvents_AlreadyConfirmedPayment_IsNotAppliedTwice() {
+        Payment payment = payment("cs_1", booking()).setStatus(Status.CONFIRMED);
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_1"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_1"))).thenReturn(List.of(
+                        stripeEvent("evt_1", "checkout.session.completed", "cs_1", "paid")));
+        when(paymentRepository.findBySessionId("cs_1")).thenReturn(Optional.of(payment));
+
+        service.applyPendingEvents();
+
+        verify(paymentRepository, never()).save(any());
+        verify(notifier, never()).telegramSendMessage(anyString());
+        verify(stripeEventRepository).markProcessed(List.of("evt_1"));
+    }
+
+    @Test
+    void applyPendingEvents_ExpiredSession_CancelsPendingPayment() {
+        Booking booking = booking();
+        Payment payment = payment("cs_4", booking);
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_4"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_4"))).thenReturn(List.of(
+                        stripeEvent("evt_4", "checkout.session.expired", "cs_4", "unpaid")));
+        when(paymentRepository.findBySessionId("cs_4")).thenReturn(Optional.of(payment));
+
+        service.applyPendingEvents();
+
+        assertEquals(Status.CANCELED, payment.getStatus());
+        assertEquals(Status.CANCELED, booking.getStatus());
+        verify(bookingIntervalIndex).register(booking);
+    }
+
+    @Test
+    void applyPendingEvents_NoEvents_ReturnsZero() {
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of());
+
+        assertEquals(0, service.applyPendingEvents());
+
+        verify(stripeEventRepository, never()).markProcessed(any());
+    }
+
+    @Test
+    void applyPendingEvents_FailingEvent_IsRetriedWithoutBlockingTheBatch() {
+        Booking booking = booking();
+        Payment payment = payment("cs_7", booking);
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_6", "evt_7"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_6", "evt_7"))).thenReturn(List.of(
+                        stripeEvent("evt_6", "checkout.session.completed", "cs_6", "paid"),
+                        stripeEvent("evt_7", "checkout.session.expired", "cs_7", "unpaid")));
+        when(paymentRepository.findBySessionId("cs_6"))
+                .thenThrow(new IllegalStateException("boom"));
+        when(paymentRepository.findBySessionId("cs_7")).thenReturn(Optional.of(payment));
+
+        assertEquals(2, service.applyPendingEvents());
+
+        verify(stripeEventRepository).recordFailure("evt_6", 1,
+                "IllegalStateException: boom");
+        verify(stripeEventRepository, never()).markProcessed(List.of("evt_6"));
+        verify(stripeEventRepository).markProcessed(List.of("evt_7"));
+        assertEquals(Status.CANCELED, payment.getStatus());
+    }
+
+    @Test
+    void applyPendingEvents_LastAttemptFails_MarksEventFailed() {
+        StripeEvent event = stripeEvent("evt_8", "checkout.session.completed", "cs_8", "paid")
+                .setAttempts(2);
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_8"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_8"))).thenReturn(List.of(event));
+        when(paymentRepository.findBySessionId("cs_8"))
+                .thenThrow(new IllegalStateException("boom"));
+
+        service.applyPendingEvents();
+
+        verify(stripeEventRepository).markFailed("evt_8", 3, "IllegalStateException: boom");
+        verify(stripeEventRepository, never()).recordFailure(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void applyPendingEvents_SessionNotSavedYet_KeepsEventPending() {
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_9"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_9"))).thenReturn(List.of(
+                        stripeEvent("evt_9", "checkout.session.completed", "cs_9", "paid")));
+
+        service.applyPendingEvents();
+
+        verify(stripeEventRepository, never()).markProcessed(any());
+        verify(stripeEventRepository, never()).markFailed(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void applyPendingEvents_SessionUnknownPastTtl_MarksEventFailed() {
+        StripeEvent event = stripeEvent("evt_10", "checkout.session.completed", "cs_10", "paid")
+                .setReceivedAt(LocalDateTime.now().minusHours(2));
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of("evt_10"));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of("evt_10"))).thenReturn(List.of(event));
+
+        service.applyPendingEvents();
+
+        verify(stripeEventRepository).markFailed("evt_10", 0, "Unknown session");
+        verify(stripeEventRepository, never()).markProcessed(any());
+    }
+
+    private void givenEvent(String eventId, String type, String sessionId,
+                            String paymentStatus, Payment payment) {
+        when(stripeEventRepository.findPendingIds(100)).thenReturn(List.of(eventId));
+        when(stripeEventRepository.findByEventIdInOrderByReceivedAtAscEventIdAsc(
+                List.of(eventId))).thenReturn(List.of(
+                        stripeEvent(eventId, type, sessionId, paymentStatus)));
+        when(paymentRepository.findBySessionId(sessionId)).thenReturn(Optional.of(payment));
+    }
+
+    private Booking booking() {
+        return new Booking()
+                .setId(1L)
+                .setStatus(Status.PENDING)
+                .setAccommodation(new Accommodation().setId(1L))
+                .setUser(new User().setId(2L).setEmail("jane@google.pl"));
+    }
+
+    private Payment payment(String sessionId, Booking booking) {
+        return new Payment()
+                .setId(10L)
+                .setSessionId(sessionId)
+                .setStatus(Status.PENDING)
+                .setAmountToPay(BigDecimal.TEN)
+                .setBookingId(booking);
+    }
+
+    private StripeEvent stripeEvent(String id, String type, String sessionId,
+                                    String paymentStatus) {
+        return new StripeEvent()
+                .setEventId(id)
+                .setType(type)
+                .setSessionId(sessionId)
+                .setPaymentStatus(paymentStatus)
+                .setReceivedAt(LocalDateTime.now());
+    }
+
+    private String event(String id, String type, String sessionId, String paymentStatus) {
+        return """
+                {"id": "%s", "object": "event", "type": "%s", "api_version": "%s",
+                 "data": {"object": {"id": "%s", "object": "checkout.session",
+                 "payment_status": "%s"}}}
+                """.formatted(id, type, Stripe.API_VERSION, sessionId, paymentStatus);
+    }
+
+    private String signature(String payload, String secret) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] digest = mac.doFinal((timestamp + "." + payload)
+                .getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(digest);
+    }
+}
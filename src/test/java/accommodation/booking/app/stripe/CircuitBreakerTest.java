@@ -0,0 +1,52 @@
+package accommodation.booking.app.stripe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofSeconds(30),
+            clock::get);
+
+    @Test
+    void onFailure_ThresholdReached_RejectsCalls() {
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void tryAcquirePermission_AfterOpenDuration_AllowsSingleTrial() {
+        breaker.onFailure();
+        breaker.onFailure();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onFailure_TrialFails_ReopensCircuit() {
+        breaker.onFailure();
+        breaker.onFailure();
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+}
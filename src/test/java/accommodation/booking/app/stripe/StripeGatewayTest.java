@@ -0,0 +1,127 @@
+package accommodation.booking.app.stripe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import accommodation.booking.app.config.StripeConfig;
+import accommodation.booking.app.exception.PaymentGatewayException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.checkout.Session;
+import com.stripe.param.checkout.SessionCreateParams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StripeGatewayTest {
+    private static final String SESSION_JSON = """
+            {"id": "cs_test_1", "object": "checkout.session", "payment_status": "unpaid",
+             "url": "https://checkout.stripe.test/cs_test_1"}
+            """;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private StripeGateway gateway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        gateway = new StripeGateway(new StripeConfig().stripeClient("sk_test",
+                Duration.ofSeconds(1), Duration.ofSeconds(5), 0,
+                "http://localhost:" + server.getAddress().getPort()),
+                new SimpleMeterRegistry(), 2, 2, Duration.ofMillis(300), 2,
+                Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateway.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void createSession_FakeStripe_ReturnsSession() {
+        respond(200, SESSION_JSON, 0);
+
+        Session session = gateway.createSession(params());
+
+        assertEquals("cs_test_1", session.getId());
+        assertEquals("https://checkout.stripe.test/cs_test_1", session.getUrl());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitState());
+    }
+
+    @Test
+    void retrieveSession_SlowStripe_FailsFastAndOpensCircuit() {
+        respond(200, SESSION_JSON, 2000);
+
+        assertThrows(PaymentGatewayException.class, () -> gateway.retrieveSession("cs_test_1"));
+        assertThrows(PaymentGatewayException.class, () -> gateway.retrieveSession("cs_test_1"));
+        long start = System.nanoTime();
+        assertThrows(PaymentGatewayException.class, () -> gateway.retrieveSession("cs_test_1"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        assertEquals(2, requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, gateway.circuitState());
+    }
+
+    @Test
+    void retrieveSession_InvalidRequest_DoesNotOpenCircuit() {
+        respond(404, """
+                {"error": {"type": "invalid_request_error", "message": "No such session"}}
+                """, 0);
+
+        for (int i = 0; i < 3; i++) {
+            PaymentGatewayException exception = assertThrows(PaymentGatewayException.class,
+                    () -> gateway.retrieveSession("cs_missing"));
+            assertTrue(exception.getCause() instanceof InvalidRequestException);
+        }
+
+        assertEquals(3, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, gateway.circuitState());
+    }
+
+    private void respond(int status, String body, long delayMillis) {
+        server.createContext("/v1/checkout/sessions", exchange -> {
+            requests.incrementAndGet();
+            sleep(delayMillis);
+            write(exchange, status, body);
+        });
+    }
+
+    private void write(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (exchange) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SessionCreateParams params() {
+        return SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setSuccessUrl("http://localhost/success")
+                .setCancelUrl("http://localhost/cancel")
+                .build();
+    }
+}
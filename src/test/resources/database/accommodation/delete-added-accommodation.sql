@@ -1 +1,2 @@
-DELETE FROM accommodations WHERE id = 4;
\ No newline at end of file
+DELETE FROM booking_guards WHERE accommodation_id > 3;
+DELETE FROM accommodations WHERE id > 3;
\ No newline at end of file
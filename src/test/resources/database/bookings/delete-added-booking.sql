@@ -1 +1 @@
-DELETE FROM bookings WHERE id = 4;
\ No newline at end of file
+DELETE FROM bookings WHERE id > 3;
\ No newline at end of file
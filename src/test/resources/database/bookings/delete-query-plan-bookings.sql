@@ -0,0 +1,2 @@
+DELETE FROM bookings WHERE id > 3;
+ANALYZE TABLE bookings;
@@ -0,0 +1,14 @@
+SET SESSION cte_max_recursion_depth = 20000;
+INSERT INTO bookings (check_in_date, check_out_date, accommodation_id, user_id, status,
+                      is_deleted, created_at)
+WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < 20000)
+SELECT DATE_ADD('2000-01-01', INTERVAL n DIV 3 DAY),
+       DATE_ADD('2000-01-02', INTERVAL n DIV 3 DAY),
+       1 + MOD(n, 3),
+       CASE MOD(n, 50) WHEN 0 THEN 2 WHEN 1 THEN 3 ELSE 1 END,
+       CASE MOD(n, 100) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'CONFIRMED' WHEN 2 THEN 'CANCELED'
+            ELSE 'EXPIRED' END,
+       false,
+       DATE_ADD('1999-12-31 12:00:00', INTERVAL n DIV 3 DAY)
+  FROM seq;
+ANALYZE TABLE bookings;
@@ -1 +1 @@
-DELETE FROM users WHERE id = 4;
\ No newline at end of file
+DELETE FROM users WHERE id > 3;
\ No newline at end of file